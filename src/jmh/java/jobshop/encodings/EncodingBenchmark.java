@@ -0,0 +1,59 @@
+package jobshop.encodings;
+
+import jobshop.Instance;
+import jobshop.Schedule;
+import jobshop.solvers.GreedySolver;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Decoding of the encodings and extraction of the critical path, on one instance of each family. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodingBenchmark {
+
+    @Param({"ft10", "la21", "abz7", "orb01", "swv11", "yn1", "ta41"})
+    public String instanceName;
+
+    private ResourceOrder order;
+    private JobNumbers jobNumbers;
+    private Schedule schedule;
+    private TopologicalDecoder decoder;
+
+    @Setup
+    public void setup() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/", instanceName));
+        schedule = new GreedySolver(GreedySolver.Priority.EST_LRPT).solve(instance, Long.MAX_VALUE).schedule;
+        order = new ResourceOrder(schedule);
+        jobNumbers = new JobNumbers(schedule);
+        decoder = new TopologicalDecoder(instance);
+    }
+
+    @Benchmark
+    public Schedule resourceOrderToSchedule() {
+        return order.toSchedule();
+    }
+
+    @Benchmark
+    public int resourceOrderMakespan() {
+        decoder.decode(order);
+        return decoder.makespan();
+    }
+
+    @Benchmark
+    public Schedule jobNumbersToSchedule() {
+        return jobNumbers.toSchedule();
+    }
+
+    @Benchmark
+    public List<Task> criticalPath() {
+        return schedule.criticalPath();
+    }
+}
@@ -0,0 +1,64 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Result;
+import jobshop.encodings.ResourceOrder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Greedy construction and one iteration of local search, on one instance of each family. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+
+    @Param({"ft10", "la21", "abz7", "orb01", "swv11", "yn1", "ta41"})
+    public String instanceName;
+
+    @Param({"N5", "N6", "N7"})
+    public Neighborhood neighborhood;
+
+    private Instance instance;
+    private GreedySolver greedy;
+    private ResourceOrder order;
+    private SwapEvaluator evaluator;
+    private List<DescentSolver.Move> moves = new ArrayList<>();
+    private int[] makespans;
+
+    @Setup
+    public void setup() throws IOException {
+        instance = Instance.fromFile(Paths.get("instances/", instanceName));
+        greedy = new GreedySolver(GreedySolver.Priority.EST_LRPT);
+        order = new ResourceOrder(greedy.solve(instance, Long.MAX_VALUE).schedule);
+        evaluator = new SwapEvaluator(order);
+        // N7 has at most four moves per task of a block
+        makespans = new int[4 * instance.numJobs * instance.numMachines];
+    }
+
+    @Benchmark
+    public Result greedy() {
+        return greedy.solve(instance, Long.MAX_VALUE);
+    }
+
+    /** One iteration of the descent: blocks of the critical path, the moves of the neighborhood and the makespan
+     * of each neighbor. The best neighbor is not applied, so that every iteration starts from the same solution. */
+    @Benchmark
+    public int localSearchIteration() {
+        moves.clear();
+        neighborhood.moves(evaluator, evaluator.blocksOfCriticalPath(), moves);
+        int best = Integer.MAX_VALUE;
+        for (int i = 0; i < moves.size(); i++) {
+            makespans[i] = evaluator.evaluate(moves.get(i));
+            best = Math.min(best, makespans[i]);
+        }
+        return best;
+    }
+}
@@ -3,11 +3,8 @@ package jobshop;
 import jobshop.encodings.Task;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Iterator;
-import java.util.Scanner;
-import java.util.stream.Collectors;
+import java.util.Arrays;
 
 public class Instance {
 
@@ -20,29 +17,48 @@ public class Instance {
     /** Number of machines, assumed to be same as number of tasks. */
     public final int numMachines;
 
-    final int[][] durations;
-    final int[][] machines;
+    // durations and machines of the tasks, stored row by row: index job * numTasks + task
+    final int[] durations;
+    final int[] machines;
+    // taskWithMachine[job * numMachines + machine] is the task of the job executed on the machine
+    private final int[] taskWithMachine;
+    // lower bound of the makespan, computed on first use (-1 before)
+    private int lowerBound = -1;
 
     public int duration(int job, int task) {
-        return durations[job][task];
+        return durations[job * numTasks + task];
     }
     public int duration(Task t) {
         return duration(t.job, t.task);
     }
+    /** Duration of the operation job * numTasks + task. */
+    public int duration(int op) {
+        return durations[op];
+    }
     public int machine(int job, int task) {
-        return machines[job][task];
+        return machines[job * numTasks + task];
     }
     public int machine(Task t) {
         return this.machine(t.job, t.task);
     }
+    /** Machine of the operation job * numTasks + task. */
+    public int machine(int op) {
+        return machines[op];
+    }
 
     /** among the tasks of the given job, returns the task index that uses the given machine. */
     public int task_with_machine(int job, int wanted_machine) {
-        for(int task = 0 ; task < numTasks ; task++) {
-            if(machine(job, task) == wanted_machine)
-                return task;
-        }
-        throw new RuntimeException("No task targeting machine "+wanted_machine+" on job "+job);
+        int task = taskWithMachine[job * numMachines + wanted_machine];
+        if(task < 0)
+            throw new RuntimeException("No task targeting machine "+wanted_machine+" on job "+job);
+        return task;
+    }
+
+    /** Lower bound of the makespan of any schedule of this instance (see LowerBound), computed once. */
+    public int lowerBound() {
+        if(lowerBound < 0)
+            lowerBound = LowerBound.of(this);
+        return lowerBound;
     }
 
     Instance(int numJobs, int numTasks) {
@@ -50,30 +66,29 @@ public class Instance {
         this.numTasks = numTasks;
         this.numMachines = numTasks;
 
-        durations = new int[numJobs][numTasks];
-        machines = new int[numJobs][numTasks];
+        durations = new int[numJobs * numTasks];
+        machines = new int[numJobs * numTasks];
+        taskWithMachine = new int[numJobs * numMachines];
     }
 
-    /** Parses a instance from a file. */
-    public static Instance fromFile(Path path) throws IOException {
-        Iterator<String> lines = Files.readAllLines(path).stream()
-                .filter(l -> !l.startsWith("#"))
-                .collect(Collectors.toList())
-                .iterator();
-
-        Scanner header = new Scanner(lines.next());
-        int num_jobs = header.nextInt();
-        int num_tasks = header.nextInt();
-        Instance pb = new Instance(num_jobs, num_tasks);
-
-        for(int job = 0 ; job<num_jobs ; job++) {
-            Scanner line = new Scanner(lines.next());
-            for(int task = 0 ; task < num_tasks ; task++) {
-                pb.machines[job][task] = line.nextInt();
-                pb.durations[job][task] = line.nextInt();
+    /** Builds the (job, machine) -> task index, once the machines of all tasks are known. */
+    void indexMachines() {
+        Arrays.fill(taskWithMachine, -1);
+        for(int job = 0 ; job < numJobs ; job++) {
+            for(int task = 0 ; task < numTasks ; task++) {
+                taskWithMachine[job * numMachines + machine(job, task)] = task;
             }
         }
+    }
+
+    /** Parses a instance from a file, or from its binary cache (`.jsi` file next to it) if it is up to date. */
+    public static Instance fromFile(Path path) throws IOException {
+        return InstanceLoader.load(path, false);
+    }
 
-        return pb;
+    /** Parses a instance from a file. If `writeCache` is set, a binary copy of the instance is stored next to the
+     * file, so that later loads are almost instantaneous. */
+    public static Instance fromFile(Path path, boolean writeCache) throws IOException {
+        return InstanceLoader.load(path, writeCache);
     }
 }
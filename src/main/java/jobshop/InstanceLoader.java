@@ -0,0 +1,141 @@
+package jobshop;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/** Reads instances from their text files, and from/to the binary cache files (`.jsi`) stored next to them.
+ *
+ * Files are memory-mapped and the text is tokenized byte by byte, without building any String.
+ * A cache file holds a magic number, the number of jobs and tasks, then the machines and durations
+ * of all tasks (row by row), as big-endian integers. It is only used if it is more recent than the text file.
+ */
+final class InstanceLoader {
+
+    /** Suffix of the cache files. */
+    static final String CACHE_SUFFIX = ".jsi";
+
+    // "JSI1"
+    private static final int MAGIC = 0x4A534931;
+
+    private InstanceLoader() {}
+
+    /** Loads the instance from the cache if it is up to date and valid, from the text file otherwise.
+     * If `writeCache` is set and the cache was not used, it is (re)written. */
+    static Instance load(Path path, boolean writeCache) throws IOException {
+        Path cache = cachePath(path);
+        if(Files.exists(cache)
+                && Files.getLastModifiedTime(cache).compareTo(Files.getLastModifiedTime(path)) >= 0) {
+            try {
+                Instance pb = readCache(cache);
+                if(pb != null)
+                    return pb;
+            } catch(IOException e) {
+                // unreadable cache, the text file is parsed instead
+            }
+        }
+        Instance pb = readText(path);
+        if(writeCache)
+            writeCache(pb, cache);
+        return pb;
+    }
+
+    static Path cachePath(Path path) {
+        return path.resolveSibling(path.getFileName() + CACHE_SUFFIX);
+    }
+
+    /** Parses an instance in the text format: number of jobs and tasks, then one line per job with the
+     * machine and duration of each task. Everything after a '#' on a line is a comment. */
+    static Instance readText(Path path) throws IOException {
+        Tokenizer tokens = new Tokenizer(map(path), path);
+        int numJobs = tokens.nextInt();
+        int numTasks = tokens.nextInt();
+        Instance pb = new Instance(numJobs, numTasks);
+        for(int op = 0 ; op < numJobs * numTasks ; op++) {
+            pb.machines[op] = tokens.nextInt();
+            pb.durations[op] = tokens.nextInt();
+        }
+        pb.indexMachines();
+        return pb;
+    }
+
+    /** Reads a cache file, returns null if it is not a valid cache file (wrong header or size, or a machine or
+     * duration out of range). */
+    static Instance readCache(Path cache) throws IOException {
+        ByteBuffer buf = map(cache);
+        if(buf.remaining() < 12 || buf.getInt() != MAGIC)
+            return null;
+        int numJobs = buf.getInt();
+        int numTasks = buf.getInt();
+        if(numJobs <= 0 || numTasks <= 0 || buf.remaining() != 8L * numJobs * numTasks)
+            return null;
+        Instance pb = new Instance(numJobs, numTasks);
+        buf.asIntBuffer().get(pb.machines).get(pb.durations);
+        for(int op = 0 ; op < numJobs * numTasks ; op++) {
+            if(pb.machines[op] < 0 || pb.machines[op] >= pb.numMachines || pb.durations[op] < 0)
+                return null;
+        }
+        pb.indexMachines();
+        return pb;
+    }
+
+    static void writeCache(Instance pb, Path cache) throws IOException {
+        int numOps = pb.numJobs * pb.numTasks;
+        ByteBuffer buf = ByteBuffer.allocate(12 + 8 * numOps);
+        buf.putInt(MAGIC).putInt(pb.numJobs).putInt(pb.numTasks);
+        // the int view does not move the position of the buffer, which is still after the header
+        buf.asIntBuffer().put(pb.machines).put(pb.durations);
+        buf.rewind();
+        // written in a temporary file then moved, so that a concurrent load never sees a partial cache
+        Path tmp = Files.createTempFile(cache.toAbsolutePath().getParent(), cache.getFileName().toString(), ".tmp");
+        try(FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            while(buf.hasRemaining())
+                channel.write(buf);
+        }
+        Files.move(tmp, cache, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static MappedByteBuffer map(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /** Reads the non-negative integers of a text file, skipping the comments (from '#' to the end of the line). */
+    private static final class Tokenizer {
+        private final ByteBuffer buf;
+        private final Path path;
+
+        Tokenizer(ByteBuffer buf, Path path) {
+            this.buf = buf;
+            this.path = path;
+        }
+
+        int nextInt() throws IOException {
+            while(buf.hasRemaining()) {
+                byte b = buf.get();
+                if(b == '#') {
+                    while(buf.hasRemaining() && buf.get() != '\n') ;
+                } else if(b >= '0' && b <= '9') {
+                    int value = b - '0';
+                    while(buf.hasRemaining()) {
+                        b = buf.get(buf.position());
+                        if(b < '0' || b > '9')
+                            break;
+                        value = 10 * value + (b - '0');
+                        buf.get();
+                    }
+                    return value;
+                } else if(b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                    throw new IOException("Unexpected character '" + (char) b + "' in instance file " + path);
+                }
+            }
+            throw new IOException("Unexpected end of instance file " + path);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package jobshop;
+
+/** Lower bounds of the makespan of an instance, that hold for every schedule.
+ *
+ * - job length: every job must run all its tasks one after the other;
+ * - machine load: every machine must run all its tasks one after the other;
+ * - one-machine: for each machine, the preemptive schedule of Jackson of its tasks, each task being released
+ *   after the previous tasks of its job and followed by the next ones. It is at least as good as the two others.
+ *
+ * The bound of an instance is computed once and cached: see Instance.lowerBound().
+ */
+public final class LowerBound {
+
+    private LowerBound() {}
+
+    /** Best of all the bounds below. */
+    public static int of(Instance instance) {
+        return Math.max(Math.max(jobLength(instance), machineLoad(instance)), oneMachine(instance));
+    }
+
+    /** Length of the longest job. */
+    public static int jobLength(Instance instance) {
+        int bound = 0;
+        for (int j = 0; j < instance.numJobs; j++) {
+            int length = 0;
+            for (int t = 0; t < instance.numTasks; t++) {
+                length += instance.duration(j, t);
+            }
+            bound = Math.max(bound, length);
+        }
+        return bound;
+    }
+
+    /** Total duration of the tasks of the most loaded machine. */
+    public static int machineLoad(Instance instance) {
+        int[] load = new int[instance.numMachines];
+        for (int j = 0; j < instance.numJobs; j++) {
+            for (int t = 0; t < instance.numTasks; t++) {
+                load[instance.machine(j, t)] += instance.duration(j, t);
+            }
+        }
+        int bound = 0;
+        for (int m = 0; m < instance.numMachines; m++) {
+            bound = Math.max(bound, load[m]);
+        }
+        return bound;
+    }
+
+    /** Largest preemptive one-machine bound, the heads and tails of the tasks being given by their job alone. */
+    public static int oneMachine(Instance instance) {
+        int n = instance.numJobs;
+        int[] r = new int[n];
+        int[] p = new int[n];
+        int[] q = new int[n];
+        int[] scratch = new int[n];
+        // time before and after each task in its job
+        int[] before = new int[n * instance.numTasks];
+        int[] after = new int[n * instance.numTasks];
+        for (int j = 0; j < n; j++) {
+            int sum = 0;
+            for (int t = 0; t < instance.numTasks; t++) {
+                before[j * instance.numTasks + t] = sum;
+                sum += instance.duration(j, t);
+            }
+            for (int t = 0; t < instance.numTasks; t++) {
+                after[j * instance.numTasks + t] = sum - before[j * instance.numTasks + t] - instance.duration(j, t);
+            }
+        }
+        int bound = 0;
+        for (int m = 0; m < instance.numMachines; m++) {
+            for (int j = 0; j < n; j++) {
+                int op = j * instance.numTasks + instance.task_with_machine(j, m);
+                r[j] = before[op];
+                p[j] = instance.duration(op);
+                q[j] = after[op];
+            }
+            bound = Math.max(bound, preemptiveBound(n, r, p, q, scratch));
+        }
+        return bound;
+    }
+
+    /** Makespan of the preemptive schedule of Jackson: at any time, run the available operation with the
+     * largest tail. It is optimal when preemption is allowed, hence a lower bound of the one-machine problem,
+     * computed here in O(n²) without any allocation (`remaining` is a scratch buffer of size n). */
+    public static int preemptiveBound(int n, int[] r, int[] p, int[] q, int[] remaining) {
+        int left = 0;
+        int bound = 0;
+        int t = Integer.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            remaining[i] = p[i];
+            if (p[i] > 0) left++;
+            else bound = Math.max(bound, r[i] + q[i]);
+            t = Math.min(t, r[i]);
+        }
+        while (left > 0) {
+            // available operation with the largest tail, and next release date
+            int chosen = -1;
+            int next = Integer.MAX_VALUE;
+            for (int i = 0; i < n; i++) {
+                if (remaining[i] == 0) continue;
+                if (r[i] <= t) {
+                    if (chosen < 0 || q[i] > q[chosen]) chosen = i;
+                } else {
+                    next = Math.min(next, r[i]);
+                }
+            }
+            if (chosen < 0) {
+                t = next;
+                continue;
+            }
+            // run it until it is done or another operation is released
+            int run = next == Integer.MAX_VALUE ? remaining[chosen] : Math.min(remaining[chosen], next - t);
+            t += run;
+            remaining[chosen] -= run;
+            if (remaining[chosen] == 0) {
+                left--;
+                bound = Math.max(bound, t + q[chosen]);
+            }
+        }
+        return bound;
+    }
+}
@@ -1,16 +1,23 @@
 package jobshop;
 
 import java.io.PrintStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 
 import jobshop.solvers.*;
 import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.ArgumentParser;
 import net.sourceforge.argparse4j.inf.ArgumentParserException;
 import net.sourceforge.argparse4j.inf.Namespace;
@@ -34,6 +41,15 @@ public class Main {
         solvers.put("greedyEST_LPT", new GreedySolver(GreedySolver.Priority.EST_LPT));
         solvers.put("greedyEST_SRPT", new GreedySolver(GreedySolver.Priority.EST_SRPT));
         solvers.put("greedyEST_LRPT", new GreedySolver(GreedySolver.Priority.EST_LRPT));
+        // ************** Giffler-Thompson Solver **************** //
+        solvers.put("activeSPT", new GifflerThompsonSolver(GreedySolver.Priority.SPT));
+        solvers.put("activeLPT", new GifflerThompsonSolver(GreedySolver.Priority.LPT));
+        solvers.put("activeSRPT", new GifflerThompsonSolver(GreedySolver.Priority.SRPT));
+        solvers.put("activeLRPT", new GifflerThompsonSolver(GreedySolver.Priority.LRPT));
+        solvers.put("nondelaySPT", new GifflerThompsonSolver(GreedySolver.Priority.SPT, true));
+        solvers.put("nondelayLPT", new GifflerThompsonSolver(GreedySolver.Priority.LPT, true));
+        solvers.put("nondelaySRPT", new GifflerThompsonSolver(GreedySolver.Priority.SRPT, true));
+        solvers.put("nondelayLRPT", new GifflerThompsonSolver(GreedySolver.Priority.LRPT, true));
         // ******************* Descent Solver ******************** //
         solvers.put("descentSPT",new DescentSolver(GreedySolver.Priority.SPT));
         solvers.put("descentLPT",new DescentSolver(GreedySolver.Priority.LPT));
@@ -111,8 +127,41 @@ public class Main {
         solvers.put("taboo(1000,80)", new TabooSolver(1000, 80));
         solvers.put("taboo(1000,90)", new TabooSolver(1000, 90));
         solvers.put("taboo(1000,100)", new TabooSolver(1000, 100));
-
-
+        // ******** Taboo Solver remembering the visited solutions ******** //
+        solvers.put("taboo(1000,10)-cycles", new TabooSolver(1000, 10, 1, true));
+        solvers.put("taboo(1000,20)-cycles", new TabooSolver(1000, 20, 1, true));
+        // ******** Local search with the insertion neighborhoods N6 and N7 ******** //
+        solvers.put("descentEST_LRPT-N6", new DescentSolver(GreedySolver.Priority.EST_LRPT, 1, Neighborhood.N6));
+        solvers.put("descentEST_LRPT-N7", new DescentSolver(GreedySolver.Priority.EST_LRPT, 1, Neighborhood.N7));
+        solvers.put("taboo(1000,10)-N6", new TabooSolver(1000, 10, 1, false, Neighborhood.N6));
+        solvers.put("taboo(1000,10)-N7", new TabooSolver(1000, 10, 1, false, Neighborhood.N7));
+        // ******** Local search with parallel evaluation of the neighborhood ******** //
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        solvers.put("descentEST_LRPT-par", new DescentSolver(GreedySolver.Priority.EST_LRPT, numThreads));
+        solvers.put("taboo(1000,10)-par", new TabooSolver(1000, 10, numThreads));
+        solvers.put("taboo(1000,20)-par", new TabooSolver(1000, 20, numThreads));
+        // ************** Parallel multi-start Taboo Solver ************** //
+        solvers.put("tabooPar(100,10)", new ParallelTabooSolver(100, 10));
+        solvers.put("tabooPar(1000,10)", new ParallelTabooSolver(1000, 10));
+        solvers.put("tabooPar(1000,20)", new ParallelTabooSolver(1000, 20));
+        // ******** Taboo Solver with elite pool and path relinking ******** //
+        solvers.put("relinking(1000,10,8)", new RelinkingSolver(1000, 10, 8));
+        solvers.put("relinking(5000,10,8)", new RelinkingSolver(5000, 10, 8));
+        // ******************* Branch and Bound Solver ******************** //
+        solvers.put("bnb", new BranchAndBoundSolver());
+        // *************** Shifting Bottleneck ***************** //
+        solvers.put("sb", new ShiftingBottleneckSolver());
+        solvers.put("sb-seq", new ShiftingBottleneckSolver(1, 1000, 5));
+        // ******************** Beam Search ********************* //
+        solvers.put("beam(1)", new BeamSearchSolver(1));
+        solvers.put("beam(10)", new BeamSearchSolver(10));
+        solvers.put("beam(100)", new BeamSearchSolver(100));
+        solvers.put("beam(10)-lb", new BeamSearchSolver(10, 3, GreedySolver.Priority.EST_LRPT, false, 1));
+        // ******************* GRASP Solver ******************** //
+        solvers.put("grasp(EST_LRPT,0.1)", new GraspSolver(GreedySolver.Priority.EST_LRPT, 0.1));
+        solvers.put("grasp(EST_LRPT,0.3)", new GraspSolver(GreedySolver.Priority.EST_LRPT, 0.3));
+        solvers.put("grasp(EST_LRPT,0.5)", new GraspSolver(GreedySolver.Priority.EST_LRPT, 0.5));
+        solvers.put("grasp(EST_SRPT,0.3)", new GraspSolver(GreedySolver.Priority.EST_SRPT, 0.3));
     }
 
 
@@ -134,6 +183,36 @@ public class Main {
                 .nargs("+")
                 .required(true)
                 .help("Instance(s) to solve (space separated if more than one)");
+        parser.addArgument("--parallel")
+                .setDefault(1)
+                .type(Integer.class)
+                .help("Number of (instance, solver) pairs solved at the same time. " +
+                        "Runtimes are wall-clock times, they grow when the resolutions share the processors");
+        parser.addArgument("--cache")
+                .action(Arguments.storeTrue())
+                .help("Store a binary copy (.jsi) of each instance next to it, to speed up the next runs");
+        parser.addArgument("--stop-at-best")
+                .action(Arguments.storeTrue())
+                .help("Stop a solver as soon as it matches the best known makespan of the instance");
+        parser.addArgument("--target-gap")
+                .setDefault(-1.0)
+                .type(Double.class)
+                .help("Stop a solver as soon as it is within this percentage of the best known makespan (disabled if negative)");
+        parser.addArgument("--stop-at-lower-bound")
+                .action(Arguments.storeTrue())
+                .help("Stop a solver as soon as it reaches a lower bound of the makespan (the solution is then optimal)");
+        parser.addArgument("--stall-iterations")
+                .setDefault(0L)
+                .type(Long.class)
+                .help("Stop a solver after this number of iterations without improvement (disabled if 0)");
+        parser.addArgument("--stall-time")
+                .setDefault(0L)
+                .type(Long.class)
+                .help("Stop a solver after this number of milliseconds without improvement (disabled if 0)");
+        parser.addArgument("--metrics")
+                .metavar("FILE")
+                .help("Write the counters and the improvement trace of each resolution to this file " +
+                        "(JSON if its name ends with .json, CSV otherwise)");
 
         Namespace ns = null;
         try {
@@ -160,6 +239,10 @@ public class Main {
         List<String> instances = new ArrayList<>();
         for(String instancePrefix : instancePrefixes) {
             List<String> matches = BestKnownResult.instancesMatching(instancePrefix);
+            if(matches.isEmpty() && Files.isRegularFile(Paths.get("instances/", instancePrefix))) {
+                // an instance of our own, without best known result
+                matches = Collections.singletonList(instancePrefix);
+            }
             if(matches.isEmpty()) {
                 System.err.println("ERROR: instance prefix \"" + instancePrefix + "\" does not match any instance.");
                 System.err.println("       available instances: " + Arrays.toString(BestKnownResult.instances));
@@ -168,8 +251,27 @@ public class Main {
             instances.addAll(matches);
         }
 
+        double targetGap = ns.getBoolean("stop_at_best") ? 0 : ns.getDouble("target_gap");
+        boolean stopAtLowerBound = ns.getBoolean("stop_at_lower_bound");
+        long stallIterations = ns.getLong("stall_iterations");
+        long stallTime = ns.getLong("stall_time");
+        boolean stopEarly = targetGap >= 0 || stopAtLowerBound || stallIterations > 0 || stallTime > 0;
+        String metricsFile = ns.getString("metrics");
+        boolean json = metricsFile != null && metricsFile.endsWith(".json");
+        // one line (CSV) or object (JSON) per resolution
+        List<String> metricsLines = new ArrayList<>();
+
+        int numParallel = ns.getInt("parallel");
+        ExecutorService pool = numParallel > 1 ? Executors.newFixedThreadPool(numParallel) : null;
+
         float[] runtimes = new float[solversToTest.size()];
         float[] distances = new float[solversToTest.size()];
+        float[] lowerBoundGaps = new float[solversToTest.size()];
+        // number of instances with a best known result, `ecart` is averaged over them only
+        int numKnown = 0;
+        for(String instanceName : instances)
+            if(BestKnownResult.isKnown(instanceName))
+                numKnown++;
 
         try {
             output.print(  "                         ");
@@ -178,41 +280,81 @@ public class Main {
             output.println();
             output.print("instance size  best      ");
             for(String s : solversToTest) {
-                output.print("runtime makespan ecart        ");
+                output.print("runtime makespan ecart lbgap  ");
             }
             output.println();
 
-
+            // one resolution per (instance, solver) pair, submitted all at once in parallel mode
+            // and run one after the other when the results are printed otherwise
+            List<Instance> loaded = new ArrayList<>();
+            List<List<Callable<Run>>> tasks = new ArrayList<>();
+            List<List<Future<Run>>> submitted = new ArrayList<>();
             for(String instanceName : instances) {
-                int bestKnown = BestKnownResult.of(instanceName);
-
-
                 Path path = Paths.get("instances/", instanceName);
-                Instance instance = Instance.fromFile(path);
+                Instance instance = Instance.fromFile(path, ns.getBoolean("cache"));
+                loaded.add(instance);
+                int target = targetGap >= 0 && BestKnownResult.isKnown(instanceName)
+                        ? (int) Math.floor(BestKnownResult.of(instanceName) * (1 + targetGap / 100)) : 0;
+                int lowerBound = stopAtLowerBound ? instance.lowerBound() : 0;
+                List<Callable<Run>> instanceTasks = new ArrayList<>();
+                List<Future<Run>> instanceFutures = new ArrayList<>();
+                for(String solverName : solversToTest) {
+                    Callable<Run> task = () -> {
+                        // one monitor per resolution, they keep track of its progress
+                        SolveMonitor monitor = stopEarly
+                                ? new StoppingCriteria(target, lowerBound, stallIterations, stallTime)
+                                : SolveMonitor.NONE;
+                        if(metricsFile != null)
+                            monitor = new SolverMetrics(monitor);
+                        return run(solvers.get(solverName), instance, solveTimeMs, monitor);
+                    };
+                    instanceTasks.add(task);
+                    if(pool != null)
+                        instanceFutures.add(pool.submit(task));
+                }
+                tasks.add(instanceTasks);
+                submitted.add(instanceFutures);
+            }
+
+            for(int instanceId = 0 ; instanceId < instances.size() ; instanceId++) {
+                String instanceName = instances.get(instanceId);
+                Instance instance = loaded.get(instanceId);
+                boolean known = BestKnownResult.isKnown(instanceName);
+                int bestKnown = known ? BestKnownResult.of(instanceName) : -1;
+                int lowerBound = instance.lowerBound();
 
-                output.printf("%-8s %-5s %4d      ",instanceName, instance.numJobs +"x"+instance.numTasks, bestKnown);
+                output.printf("%-8s %-5s %4s      ",instanceName, instance.numJobs +"x"+instance.numTasks, known ? bestKnown : "-");
 
                 for(int solverId = 0 ; solverId < solversToTest.size() ; solverId++) {
-                    String solverName = solversToTest.get(solverId);
-                    Solver solver = solvers.get(solverName);
-                    long start = System.currentTimeMillis();
-                    long deadline = System.currentTimeMillis() + solveTimeMs;
-                    Result result = solver.solve(instance, deadline);
-                    long runtime = System.currentTimeMillis() - start;
-
-                    if(!result.schedule.isValid()) {
-                        System.err.println("ERROR: solver returned an invalid schedule");
+                    Run run = pool != null
+                            ? submitted.get(instanceId).get(solverId).get()
+                            : tasks.get(instanceId).get(solverId).call();
+                    Result result = run.result;
+                    long runtime = run.runtime;
+
+                    String violation = result.schedule.violation();
+                    if(violation != null) {
+                        System.err.println("ERROR: solver returned an invalid schedule on " + instanceName + ": " + violation);
                         System.exit(1);
                     }
 
-                    assert result.schedule.isValid();
                     int makespan = result.schedule.makespan();
                     float dist = 100f * (makespan - bestKnown) / (float) bestKnown;
+                    float lbGap = 100f * (makespan - lowerBound) / (float) lowerBound;
                     runtimes[solverId] += (float) runtime / (float) instances.size();
-                    distances[solverId] += dist / (float) instances.size();
+                    if(known)
+                        distances[solverId] += dist / (float) numKnown;
+                    lowerBoundGaps[solverId] += lbGap / (float) instances.size();
 
-                    output.printf("%7d %8s %5.1f        ", runtime, makespan, dist);
+                    output.printf("%7d %8s %5s %5.1f  ", runtime, makespan, known ? String.format("%5.1f", dist) : "-", lbGap);
                     output.flush();
+
+                    if(run.metrics != null) {
+                        String solverName = solversToTest.get(solverId);
+                        metricsLines.add(json
+                                ? run.metrics.toJson(instanceName, solverName, runtime, makespan)
+                                : run.metrics.toCsv(instanceName, solverName, runtime, makespan));
+                    }
                 }
                 output.println();
 
@@ -221,14 +363,53 @@ public class Main {
 
             output.printf("%-8s %-5s %4s      ", "AVG", "-", "-");
             for(int solverId = 0 ; solverId < solversToTest.size() ; solverId++) {
-                output.printf("%7.1f %8s %5.1f        ", runtimes[solverId], "-", distances[solverId]);
+                output.printf("%7.1f %8s %5s %5.1f  ", runtimes[solverId], "-",
+                        numKnown > 0 ? String.format("%5.1f", distances[solverId]) : "-", lowerBoundGaps[solverId]);
             }
+            output.println();
 
-
+            if(metricsFile != null) {
+                List<String> lines = new ArrayList<>();
+                if(json) {
+                    lines.add("[");
+                    for(int i = 0 ; i < metricsLines.size() ; i++)
+                        lines.add("  " + metricsLines.get(i) + (i < metricsLines.size() - 1 ? "," : ""));
+                    lines.add("]");
+                } else {
+                    lines.add(SolverMetrics.csvHeader());
+                    lines.addAll(metricsLines);
+                }
+                Files.write(Paths.get(metricsFile), lines);
+            }
 
         } catch (Exception e) {
             e.printStackTrace();
             System.exit(1);
+        } finally {
+            if(pool != null)
+                pool.shutdownNow();
         }
     }
+
+    /** Result of one solver on one instance, with the time it took in milliseconds and its metrics (if measured). */
+    private static class Run {
+        final Result result;
+        final long runtime;
+        final SolverMetrics metrics;
+
+        Run(Result result, long runtime, SolverMetrics metrics) {
+            this.result = result;
+            this.runtime = runtime;
+            this.metrics = metrics;
+        }
+    }
+
+    /** Solves the instance with a deadline starting now. The runtime is the wall-clock time: the CPU time of the
+     * calling thread would miss the threads started by parallel solvers. */
+    private static Run run(Solver solver, Instance instance, long solveTimeMs, SolveMonitor monitor) {
+        long start = System.currentTimeMillis();
+        long deadline = start + solveTimeMs;
+        Result result = solver.solve(instance, deadline, monitor);
+        return new Run(result, System.currentTimeMillis() - start, monitor.metrics());
+    }
 }
@@ -11,7 +11,7 @@ public class Result {
     }
 
     public enum ExitCause {
-        Timeout, ProvedOptimal, Blocked
+        Timeout, ProvedOptimal, Blocked, Cancelled
     }
 
     public final Instance instance;
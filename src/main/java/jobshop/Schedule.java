@@ -4,7 +4,6 @@ package jobshop;
 import jobshop.encodings.Task;
 
 import java.util.*;
-import java.util.stream.IntStream;
 
 public class Schedule {
     public final Instance pb;
@@ -26,33 +25,51 @@ public class Schedule {
 
     /** Returns true if this schedule is valid (no constraint is violated) */
     public boolean isValid() {
+        return violation() == null;
+    }
+
+    /** Returns a description of the first constraint violated by this schedule, null if it is valid.
+     * Precedences are checked job by job. Then the tasks of each machine are sorted by start time, so that
+     * two of them overlap if and only if two consecutive ones do: O(numJobs * numTasks * log(numJobs)). */
+    public String violation() {
         for(int j = 0 ; j<pb.numJobs ; j++) {
-            for(int t = 1 ; t<pb.numTasks ; t++) {
-                if(startTime(j, t-1) + pb.duration(j, t-1) > startTime(j, t))
-                    return false;
-            }
             for(int t = 0 ; t<pb.numTasks ; t++) {
                 if(startTime(j, t) < 0)
-                    return false;
+                    return String.format("task (%d,%d) starts at %d < 0", j, t, startTime(j, t));
+            }
+            for(int t = 1 ; t<pb.numTasks ; t++) {
+                if(startTime(j, t-1) + pb.duration(j, t-1) > startTime(j, t))
+                    return String.format("task (%d,%d) starts at %d, before the end of task (%d,%d) at %d",
+                            j, t, startTime(j, t), j, t-1, startTime(j, t-1) + pb.duration(j, t-1));
             }
         }
 
+        // tasks of the machine sorted by start time: start time in the high bits, then the empty tasks first
+        // (they can start when another one does), then the job
+        long[] keys = new long[pb.numJobs];
         for (int machine = 0 ; machine < pb.numMachines ; machine++) {
-            for(int j1=0 ; j1<pb.numJobs ; j1++) {
-                int t1 = pb.task_with_machine(j1, machine);
-                for(int j2=j1+1 ; j2<pb.numJobs ; j2++) {
-                    int t2 = pb.task_with_machine(j2, machine);
-
-                    boolean t1_first = startTime(j1, t1) + pb.duration(j1, t1) <= startTime(j2, t2);
-                    boolean t2_first = startTime(j2, t2) + pb.duration(j2, t2) <= startTime(j1, t1);
-
-                    if(!t1_first && !t2_first)
-                        return false;
-                }
+            for(int j = 0 ; j<pb.numJobs ; j++) {
+                int t = pb.task_with_machine(j, machine);
+                keys[j] = ((long) startTime(j, t) << 32) | (pb.duration(j, t) > 0 ? 1L << 31 : 0) | j;
+            }
+            Arrays.sort(keys);
+            // job of the task that ends last among the ones seen so far
+            int last = (int) keys[0] & Integer.MAX_VALUE;
+            for(int k = 1 ; k<pb.numJobs ; k++) {
+                int j = (int) keys[k] & Integer.MAX_VALUE;
+                int t1 = pb.task_with_machine(last, machine);
+                int t2 = pb.task_with_machine(j, machine);
+                int end1 = startTime(last, t1) + pb.duration(last, t1);
+                int end2 = startTime(j, t2) + pb.duration(j, t2);
+                if(end1 > startTime(j, t2))
+                    return String.format("tasks (%d,%d) [%d,%d[ and (%d,%d) [%d,%d[ overlap on machine %d",
+                            last, t1, startTime(last, t1), end1, j, t2, startTime(j, t2), end2, machine);
+                if(end2 > end1)
+                    last = j;
             }
         }
 
-        return true;
+        return null;
     }
 
     public int makespan() {
@@ -86,53 +103,95 @@ public class Schedule {
     }
 
     public List<Task> criticalPath() {
-        // select task with greatest end time
-        Task ldd = IntStream.range(0, pb.numJobs)
-                .mapToObj(j -> new Task(j, pb.numTasks-1))
-                .max(Comparator.comparing(this::endTime))
-                .get();
-        assert endTime(ldd) == makespan();
-
-        // list that will contain the critical path.
-        // we construct it from the end, starting with the
-        // task that finishes last
-        LinkedList<Task> path = new LinkedList<>();
-        path.add(0,ldd);
-
-        // keep adding tasks to the path until the first task in the path
-        // starts a time 0
-        while(startTime(path.getFirst()) != 0) {
-            Task cur = path.getFirst();
-            int machine = pb.machine(cur.job, cur.task);
-
-            // will contain the task that was delaying the start
-            // of our current task
-            Optional<Task> latestPredecessor = Optional.empty();
-
-            if(cur.task > 0) {
-                // our current task has a predecessor on the job
-                Task predOnJob = new Task(cur.job, cur.task -1);
-
-                // if it was the delaying task, save it to predecessor
-                if(endTime(predOnJob) == startTime(cur))
-                    latestPredecessor = Optional.of(predOnJob);
+        int numOps = pb.numJobs * pb.numTasks;
+        int[] startTimes = new int[numOps];
+        for(int j = 0 ; j < pb.numJobs ; j++) {
+            System.arraycopy(times[j], 0, startTimes, j * pb.numTasks, pb.numTasks);
+        }
+        // previous operation on each machine, from the operations of the machine sorted by start time
+        int[] machinePred = new int[numOps];
+        long[] keys = new long[pb.numJobs];
+        for(int m = 0 ; m < pb.numMachines ; m++) {
+            for(int j = 0 ; j < pb.numJobs ; j++) {
+                int op = j * pb.numTasks + pb.task_with_machine(j, m);
+                keys[j] = ((long) startTimes[op] << 32) | op;
             }
-            if(!latestPredecessor.isPresent()) {
-                // no latest predecessor found yet, look among tasks executing on the same machine
-                latestPredecessor = IntStream.range(0, pb.numJobs)
-                        .mapToObj(j -> new Task(j, pb.task_with_machine(j, machine)))
-                        .filter(t -> endTime(t) == startTime(cur))
-                        .findFirst();
+            Arrays.sort(keys);
+            for(int k = 0 ; k < pb.numJobs ; k++) {
+                machinePred[(int) keys[k]] = k == 0 ? -1 : (int) keys[k-1];
             }
-            // at this point we should have identified a latest predecessor, either on the job or on the machine
-            assert latestPredecessor.isPresent() && endTime(latestPredecessor.get()) == startTime(cur);
-            // insert predecessor at the beginning of the path
-            path.add(0, latestPredecessor.get());
+        }
+
+        int[] ops = new int[numOps];
+        int length = criticalPath(pb, startTimes, machinePred, ops);
+        List<Task> path = new ArrayList<>(length);
+        for(int i = 0 ; i < length ; i++) {
+            path.add(new Task(ops[i] / pb.numTasks, ops[i] % pb.numTasks));
         }
         assert isCriticalPath(path);
         return path;
     }
 
+    /** Writes in `path` the operations (job * numTasks + task) of a critical path, from the first to the last one,
+     * and returns its length. The schedule is given by the start time of each operation, and machinePred[op] is the
+     * operation executed just before op on its machine (-1 if none). `path` needs one slot per operation.
+     * Nothing is allocated, so that local searches can call it at each iteration. */
+    public static int criticalPath(Instance pb, int[] startTimes, int[] machinePred, int[] path) {
+        // select the task with greatest end time (the first one in case of tie)
+        int last = pb.numTasks - 1;
+        for(int j = 1 ; j < pb.numJobs ; j++) {
+            int op = j * pb.numTasks + pb.numTasks - 1;
+            if(end(pb, startTimes, op) > end(pb, startTimes, last))
+                last = op;
+        }
+        // the path is built from the end, then reversed
+        int length = 0;
+        int cur = last;
+        path[length++] = cur;
+        while(startTimes[cur] != 0) {
+            // the task that was delaying the start of cur: its predecessor on the job if it ends right
+            // when cur starts, its predecessor on the machine otherwise
+            int pred = cur % pb.numTasks > 0 ? cur - 1 : -1;
+            if(pred < 0 || end(pb, startTimes, pred) != startTimes[cur]) {
+                pred = machinePred[cur];
+            }
+            if(pred < 0 || end(pb, startTimes, pred) != startTimes[cur]) {
+                throw new RuntimeException("The schedule is not semi-active, it has no critical path");
+            }
+            path[length++] = pred;
+            cur = pred;
+        }
+        for(int i = 0, k = length - 1 ; i < k ; i++, k--) {
+            int tmp = path[i];
+            path[i] = path[k];
+            path[k] = tmp;
+        }
+        return length;
+    }
+
+    /** Decomposes a critical path into blocks: maximal sequences of at least two consecutive operations on the same
+     * machine. The bounds of the b-th block are written in blocks[2*b] and blocks[2*b+1] (indices of its first and
+     * last operations in the path). Returns the number of blocks. */
+    public static int blocks(Instance pb, int[] path, int length, int[] blocks) {
+        int numBlocks = 0;
+        int first = 0;
+        for(int i = 1 ; i <= length ; i++) {
+            if(i == length || pb.machine(path[i]) != pb.machine(path[first])) {
+                if(i - 1 > first) {
+                    blocks[2 * numBlocks] = first;
+                    blocks[2 * numBlocks + 1] = i - 1;
+                    numBlocks++;
+                }
+                first = i;
+            }
+        }
+        return numBlocks;
+    }
+
+    private static int end(Instance pb, int[] startTimes, int op) {
+        return startTimes[op] + pb.duration(op);
+    }
+
     public String toString(){
         StringBuilder str = new StringBuilder();
         for (int j = 0; j < times.length;j++){
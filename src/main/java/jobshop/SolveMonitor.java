@@ -0,0 +1,51 @@
+package jobshop;
+
+/** Follows a solver while it runs: it is told of every solution that improves on the previous ones, as soon as
+ * it is found, and can stop the solver early.
+ *
+ * Calls are made from the thread running the solver, so they should return quickly. */
+public interface SolveMonitor {
+
+    /** Monitor that ignores the solutions and never cancels. */
+    SolveMonitor NONE = (schedule, timestamp) -> {};
+
+    /** Called with each improving solution and the time (System.currentTimeMillis()) at which it was found. */
+    void improved(Schedule schedule, long timestamp);
+
+    /** Polled by the solver between two iterations: once it returns true, the solver stops and returns
+     * the best solution found so far with the exit cause Cancelled. */
+    default boolean isCancelled() {
+        return false;
+    }
+
+    /** Counters the solver should update while it runs, null if they are not wanted. */
+    default SolverMetrics metrics() {
+        return null;
+    }
+
+    /** Monitor forwarding the solutions to `downstream`, that cancels the solve as soon as a solution with
+     * a makespan of at most `target` is found (or when `downstream` is cancelled). */
+    static SolveMonitor stopAt(int target, SolveMonitor downstream) {
+        return new SolveMonitor() {
+            private volatile boolean reached = false;
+
+            @Override
+            public void improved(Schedule schedule, long timestamp) {
+                downstream.improved(schedule, timestamp);
+                if (schedule.makespan() <= target) {
+                    reached = true;
+                }
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return reached || downstream.isCancelled();
+            }
+
+            @Override
+            public SolverMetrics metrics() {
+                return downstream.metrics();
+            }
+        };
+    }
+}
@@ -4,4 +4,12 @@ public interface Solver {
 
     Result solve(Instance instance, long deadline);
 
+    /** Solves the instance, telling the monitor of the solutions found along the way and stopping early if it is
+     * cancelled. Solvers that do not support it only report their final solution. */
+    default Result solve(Instance instance, long deadline, SolveMonitor monitor) {
+        Result result = solve(instance, deadline);
+        monitor.improved(result.schedule, System.currentTimeMillis());
+        return result;
+    }
+
 }
@@ -0,0 +1,124 @@
+package jobshop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Counters of what a solver did during one resolution, and the trace of its improving solutions over time.
+ *
+ * The metrics are a monitor that forwards everything to another one (e.g. the stopping criteria): solvers get them
+ * from SolveMonitor.metrics() and update the counters from their main loops. Counters are LongAdders, so threads
+ * of a parallel solver can update them without contention. Which counters are meaningful depends on the solver:
+ * - iterations: steps of a local search (one per neighborhood scored), tries of the random solver, nodes of
+ *   the branch and bound;
+ * - neighbors: moves scored;
+ * - decodes: schedules fully decoded, to evaluate a move exactly or to build a solution;
+ * - infeasible: moves rejected because they create a cycle;
+ * - tabooHits: moves rejected because they are taboo (and not aspirated);
+ * - improvements: improving solutions reported, each one being also recorded in the trace.
+ */
+public class SolverMetrics implements SolveMonitor {
+
+    public final LongAdder iterations = new LongAdder();
+    public final LongAdder neighbors = new LongAdder();
+    public final LongAdder decodes = new LongAdder();
+    public final LongAdder infeasible = new LongAdder();
+    public final LongAdder tabooHits = new LongAdder();
+    public final LongAdder improvements = new LongAdder();
+
+    private final SolveMonitor downstream;
+    private final long start;
+    // (milliseconds since the start, makespan) of each improving solution
+    private final List<long[]> trace = new ArrayList<>();
+
+    /** Starts measuring now. */
+    public SolverMetrics(SolveMonitor downstream) {
+        this.downstream = downstream;
+        this.start = System.currentTimeMillis();
+    }
+
+    @Override
+    public void improved(Schedule schedule, long timestamp) {
+        improvements.increment();
+        synchronized (trace) {
+            trace.add(new long[] { timestamp - start, schedule.makespan() });
+        }
+        downstream.improved(schedule, timestamp);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return downstream.isCancelled();
+    }
+
+    @Override
+    public SolverMetrics metrics() {
+        return this;
+    }
+
+    /** Improving solutions, as (milliseconds since the start, makespan), in the order they were reported. */
+    public List<long[]> trace() {
+        synchronized (trace) {
+            return new ArrayList<>(trace);
+        }
+    }
+
+    /** Milliseconds needed to find a solution with a makespan of at most `target`, -1 if none was found. */
+    public long timeToTarget(int target) {
+        for (long[] point : trace()) {
+            if (point[1] <= target) return point[0];
+        }
+        return -1;
+    }
+
+    /** Neighbors scored per second of the given runtime (in milliseconds). */
+    public double neighborsPerSecond(long runtime) {
+        return runtime > 0 ? 1000.0 * neighbors.sum() / runtime : 0;
+    }
+
+    /** Header of the lines written by toCsv. */
+    public static String csvHeader() {
+        return "instance,solver,runtime,makespan,iterations,neighbors,decodes,infeasible,tabooHits,improvements,neighborsPerSecond,trace";
+    }
+
+    /** One CSV line with the counters of a resolution. The trace is written as `ms:makespan` pairs separated by spaces. */
+    public String toCsv(String instance, String solver, long runtime, int makespan) {
+        StringBuilder points = new StringBuilder();
+        for (long[] point : trace()) {
+            if (points.length() > 0) points.append(' ');
+            points.append(point[0]).append(':').append(point[1]);
+        }
+        return String.format(Locale.ROOT, "%s,\"%s\",%d,%d,%d,%d,%d,%d,%d,%d,%.1f,%s",
+                instance, solver.replace("\"", "\"\""), runtime, makespan, iterations.sum(), neighbors.sum(),
+                decodes.sum(), infeasible.sum(), tabooHits.sum(), improvements.sum(),
+                neighborsPerSecond(runtime), points);
+    }
+
+    /** One JSON object with the counters of a resolution. */
+    public String toJson(String instance, String solver, long runtime, int makespan) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"instance\": \"").append(escape(instance))
+                .append("\", \"solver\": \"").append(escape(solver))
+                .append("\", \"runtime\": ").append(runtime)
+                .append(", \"makespan\": ").append(makespan)
+                .append(", \"iterations\": ").append(iterations.sum())
+                .append(", \"neighbors\": ").append(neighbors.sum())
+                .append(", \"decodes\": ").append(decodes.sum())
+                .append(", \"infeasible\": ").append(infeasible.sum())
+                .append(", \"tabooHits\": ").append(tabooHits.sum())
+                .append(", \"improvements\": ").append(improvements.sum())
+                .append(", \"neighborsPerSecond\": ").append(String.format(Locale.ROOT, "%.1f", neighborsPerSecond(runtime)))
+                .append(", \"trace\": [");
+        List<long[]> points = trace();
+        for (int i = 0; i < points.size(); i++) {
+            if (i > 0) json.append(", ");
+            json.append('[').append(points.get(i)[0]).append(", ").append(points.get(i)[1]).append(']');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,57 @@
+package jobshop;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Stops a solver before its deadline, as soon as one of these criteria is met:
+ * - target: a solution with a makespan of at most the target was found (e.g. the best known one);
+ * - lower bound: a solution reaches a lower bound of the makespan (e.g. Instance.lowerBound()), so it is optimal;
+ * - stall: no improving solution for a number of iterations, or for a number of milliseconds.
+ * Iterations are counted as the calls to isCancelled(), that solvers make once per iteration.
+ *
+ * A criterion is disabled by a value of 0 or less. An instance must only be used for one resolution.
+ * It can be shared by the threads of a parallel solver.
+ */
+public class StoppingCriteria implements SolveMonitor {
+
+    private final int target;
+    private final int lowerBound;
+    private final long stallIterations;
+    private final long stallMillis;
+
+    // makespan of the best solution reported so far
+    private volatile int best = Integer.MAX_VALUE;
+    // time of the last improvement (or of the creation), and number of iterations since then
+    private volatile long lastImprovement = System.currentTimeMillis();
+    private final AtomicLong iterations = new AtomicLong();
+
+    public StoppingCriteria(int target, int lowerBound, long stallIterations, long stallMillis) {
+        this.target = target;
+        this.lowerBound = lowerBound;
+        this.stallIterations = stallIterations;
+        this.stallMillis = stallMillis;
+    }
+
+    @Override
+    public synchronized void improved(Schedule schedule, long timestamp) {
+        int makespan = schedule.makespan();
+        if (makespan < best) {
+            best = makespan;
+            lastImprovement = timestamp;
+            iterations.set(0);
+        }
+    }
+
+    @Override
+    public boolean isCancelled() {
+        int b = best;
+        if (target > 0 && b <= target) return true;
+        if (lowerBound > 0 && b <= lowerBound) return true;
+        if (stallIterations > 0 && iterations.incrementAndGet() > stallIterations) return true;
+        return stallMillis > 0 && System.currentTimeMillis() - lastImprovement >= stallMillis;
+    }
+
+    /** Makespan of the best solution reported so far, Integer.MAX_VALUE if none. */
+    public int best() {
+        return best;
+    }
+}
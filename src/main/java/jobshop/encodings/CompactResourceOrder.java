@@ -0,0 +1,261 @@
+package jobshop.encodings;
+
+import jobshop.Encoding;
+import jobshop.Instance;
+import jobshop.Schedule;
+
+import java.util.Arrays;
+
+/** Resource order stored in flat arrays of primitive integers, without any Task object.
+ *
+ * An operation (job, task) is identified by the integer `job * numTasks + task`.
+ * On top of the order of each machine, the encoding maintains for every operation its position on its machine
+ * and its predecessor/successor on the machine, so that the disjunctive graph can be traversed without any lookup.
+ */
+public class CompactResourceOrder extends Encoding {
+
+    /** sequence[m * numJobs + k] is the k-th operation executed on machine m. */
+    public final int[] sequence;
+
+    /** For each machine, indicates how many operations have been placed on it. */
+    public final int[] nextFreeSlot;
+
+    /** For each operation, its position in the sequence of its machine (-1 if not placed yet). */
+    public final int[] rank;
+
+    /** For each operation, the next operation of its job (-1 for the last task of a job). */
+    public final int[] jobSucc;
+
+    /** For each operation, the previous operation on its machine (-1 if none). */
+    public final int[] machinePred;
+
+    /** For each operation, the next operation on its machine (-1 if none). */
+    public final int[] machineSucc;
+
+    /** Creates a new empty resource order. */
+    public CompactResourceOrder(Instance instance) {
+        super(instance);
+        int numOps = instance.numJobs * instance.numTasks;
+        sequence = new int[instance.numMachines * instance.numJobs];
+        nextFreeSlot = new int[instance.numMachines];
+        rank = new int[numOps];
+        jobSucc = new int[numOps];
+        machinePred = new int[numOps];
+        machineSucc = new int[numOps];
+        for(int op = 0 ; op < numOps ; op++) {
+            jobSucc[op] = task(op) == instance.numTasks - 1 ? -1 : op + 1;
+        }
+        clear();
+    }
+
+    /** Creates a compact copy of the given resource order. */
+    public CompactResourceOrder(ResourceOrder order) {
+        this(order.instance);
+        copyFrom(order);
+    }
+
+    /** Creates the resource order in which the tasks of each machine are executed in the order they appear
+     * in the given job numbers. */
+    public CompactResourceOrder(JobNumbers jobNumbers) {
+        this(jobNumbers.instance);
+        // for each job, the next task to appear in the job numbers
+        int[] nextTask = new int[instance.numJobs];
+        for(int i = 0 ; i < jobNumbers.nextToSet ; i++) {
+            int job = jobNumbers.jobs[i];
+            add(op(job, nextTask[job]++));
+        }
+    }
+
+    /** Identifier of the task (job, task). */
+    public int op(int job, int task) {
+        return job * instance.numTasks + task;
+    }
+
+    /** Job of the given operation. */
+    public int job(int op) {
+        return op / instance.numTasks;
+    }
+
+    /** Index of the given operation inside its job. */
+    public int task(int op) {
+        return op % instance.numTasks;
+    }
+
+    /** Previous operation of the same job (-1 for the first task of a job). */
+    public int jobPred(int op) {
+        return task(op) == 0 ? -1 : op - 1;
+    }
+
+    /** Removes all operations from the machines. */
+    public void clear() {
+        Arrays.fill(nextFreeSlot, 0);
+        Arrays.fill(rank, -1);
+        Arrays.fill(machinePred, -1);
+        Arrays.fill(machineSucc, -1);
+    }
+
+    /** Places the given operation after all the operations already placed on its machine. */
+    public void add(int op) {
+        int m = instance.machine(op);
+        int k = nextFreeSlot[m]++;
+        sequence[m * instance.numJobs + k] = op;
+        rank[op] = k;
+        machineSucc[op] = -1;
+        if(k == 0) {
+            machinePred[op] = -1;
+        } else {
+            int pred = sequence[m * instance.numJobs + k - 1];
+            machinePred[op] = pred;
+            machineSucc[pred] = op;
+        }
+    }
+
+    /** Operation at position k on machine m. */
+    public int get(int m, int k) {
+        return sequence[m * instance.numJobs + k];
+    }
+
+    /** Exchanges the operations at positions i and j on machine m. */
+    public void swap(int m, int i, int j) {
+        int base = m * instance.numJobs;
+        int a = sequence[base + i];
+        sequence[base + i] = sequence[base + j];
+        sequence[base + j] = a;
+        rank[sequence[base + i]] = i;
+        rank[sequence[base + j]] = j;
+        link(m, i - 1);
+        link(m, i);
+        link(m, j - 1);
+        link(m, j);
+    }
+
+    /** Moves the operation at position `from` on machine m to position `to`, shifting the operations in between. */
+    public void move(int m, int from, int to) {
+        int base = m * instance.numJobs;
+        int op = sequence[base + from];
+        int lo = Math.min(from, to);
+        int hi = Math.max(from, to);
+        if(from < to) {
+            System.arraycopy(sequence, base + from + 1, sequence, base + from, to - from);
+        } else {
+            System.arraycopy(sequence, base + to, sequence, base + to + 1, from - to);
+        }
+        sequence[base + to] = op;
+        for(int k = lo ; k <= hi ; k++) {
+            rank[sequence[base + k]] = k;
+        }
+        for(int k = lo - 1 ; k <= hi ; k++) {
+            link(m, k);
+        }
+    }
+
+    /** Updates the machine links between positions k and k+1 of machine m. */
+    private void link(int m, int k) {
+        int base = m * instance.numJobs;
+        if(k >= 0 && k < nextFreeSlot[m]) {
+            machineSucc[sequence[base + k]] = k + 1 < nextFreeSlot[m] ? sequence[base + k + 1] : -1;
+        }
+        if(k + 1 >= 0 && k + 1 < nextFreeSlot[m]) {
+            machinePred[sequence[base + k + 1]] = k >= 0 ? sequence[base + k] : -1;
+        }
+    }
+
+    /** Overwrites this order with the content of the given one (they must be on the same instance). */
+    public void copyFrom(CompactResourceOrder other) {
+        System.arraycopy(other.sequence, 0, sequence, 0, sequence.length);
+        System.arraycopy(other.nextFreeSlot, 0, nextFreeSlot, 0, nextFreeSlot.length);
+        System.arraycopy(other.rank, 0, rank, 0, rank.length);
+        System.arraycopy(other.machinePred, 0, machinePred, 0, machinePred.length);
+        System.arraycopy(other.machineSucc, 0, machineSucc, 0, machineSucc.length);
+    }
+
+    /** Overwrites this order with the content of the given resource order (they must be on the same instance). */
+    public void copyFrom(ResourceOrder order) {
+        clear();
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            for(int k = 0 ; k < order.nextFreeSlot[m] ; k++) {
+                Task t = order.tasksByMachine[m][k];
+                add(op(t.job, t.task));
+            }
+        }
+    }
+
+    /** Writes in `topo` the operations in a topological order of the disjunctive graph (Kahn's algorithm),
+     * using `indegree` as a scratch buffer. Both arrays must have one slot per operation.
+     * Returns the number of operations written: it is smaller than the number of operations if the
+     * order contains a cycle. Operations that are not placed on their machine are ignored. */
+    public int topologicalOrder(int[] topo, int[] indegree) {
+        int numOps = rank.length;
+        int size = 0;
+        for(int op = 0 ; op < numOps ; op++) {
+            indegree[op] = (task(op) == 0 ? 0 : 1) + (machinePred[op] < 0 ? 0 : 1);
+            if(indegree[op] == 0 && rank[op] >= 0) {
+                topo[size++] = op;
+            }
+        }
+        for(int i = 0 ; i < size ; i++) {
+            int op = topo[i];
+            int js = jobSucc[op];
+            if(js >= 0 && --indegree[js] == 0 && rank[js] >= 0) topo[size++] = js;
+            int ms = machineSucc[op];
+            if(ms >= 0 && --indegree[ms] == 0) topo[size++] = ms;
+        }
+        return size;
+    }
+
+    /** Returns the (uncompressed) resource order with the same sequences. */
+    public ResourceOrder toResourceOrder() {
+        ResourceOrder order = new ResourceOrder(instance);
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            for(int k = 0 ; k < nextFreeSlot[m] ; k++) {
+                int op = get(m, k);
+                order.tasksByMachine[m][k] = new Task(job(op), task(op));
+            }
+            order.nextFreeSlot[m] = nextFreeSlot[m];
+        }
+        return order;
+    }
+
+    /** Returns job numbers that lead to the same schedule.
+     * Throws an exception if the order contains a cycle. */
+    public JobNumbers toJobNumbers() {
+        int numOps = rank.length;
+        int[] topo = new int[numOps];
+        if(topologicalOrder(topo, new int[numOps]) != numOps) {
+            throw new RuntimeException("Cyclic resource order, no schedule can be built from it");
+        }
+        JobNumbers jobNumbers = new JobNumbers(instance);
+        for(int op : topo) {
+            jobNumbers.jobs[jobNumbers.nextToSet++] = job(op);
+        }
+        return jobNumbers;
+    }
+
+    @Override
+    public Schedule toSchedule() {
+        return toSchedule(new TopologicalDecoder(instance));
+    }
+
+    /** Builds the schedule of this resource order, using the buffers of the given decoder.
+     * Throws an exception if the order contains a cycle. */
+    public Schedule toSchedule(TopologicalDecoder decoder) {
+        if(!decoder.decode(this)) {
+            throw new RuntimeException("Cyclic resource order, no schedule can be built from it");
+        }
+        return decoder.toSchedule();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            s.append("Machine ").append(m).append(" : ");
+            for(int k = 0 ; k < nextFreeSlot[m] ; k++) {
+                int op = get(m, k);
+                s.append("(").append(job(op)).append(", ").append(task(op)).append(") ; ");
+            }
+            s.append("\n");
+        }
+        return s.toString();
+    }
+}
@@ -5,8 +5,6 @@ import jobshop.Instance;
 import jobshop.Schedule;
 
 import java.util.Arrays;
-import java.util.Comparator;
-import java.util.stream.IntStream;
 
 /** Représentation par numéro de job. */
 public class JobNumbers extends Encoding {
@@ -18,6 +16,12 @@ public class JobNumbers extends Encoding {
      * element of `jobs` that has not been set yet. */
     public int nextToSet = 0;
 
+    // buffers of makespan(), allocated on first use: time at which each machine and each job is freed,
+    // and for each job the first task not scheduled yet
+    private int[] machineFree;
+    private int[] jobFree;
+    private int[] nextTask;
+
     public JobNumbers(Instance instance) {
         super(instance);
 
@@ -30,23 +34,18 @@ public class JobNumbers extends Encoding {
 
         this.jobs = new int[instance.numJobs * instance.numTasks];
 
-        // for each job indicates which is the next task to be scheduled
-        int[] nextOnJob = new int[instance.numJobs];
-
-        while(Arrays.stream(nextOnJob).anyMatch(t -> t < instance.numTasks)) {
-            Task next = IntStream
-                    // for all jobs numbers
-                    .range(0, instance.numJobs)
-                    // build the next task for this job
-                    .mapToObj(j -> new Task(j, nextOnJob[j]))
-                    // only keep valid tasks (some jobs have no task left to be executed)
-                    .filter(t -> t.task < instance.numTasks)
-                    // select the task with the earliest execution time
-                    .min(Comparator.comparing(t -> schedule.startTime(t.job, t.task)))
-                    .get();
-
-            this.jobs[nextToSet++] = next.job;
-            nextOnJob[next.job] += 1;
+        // all tasks sorted by start time, ties broken by job then task: the start time is packed in the
+        // high bits of a long and the operation number (job * numTasks + task) in the low bits
+        long[] keys = new long[instance.numJobs * instance.numTasks];
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            for(int t = 0 ; t < instance.numTasks ; t++) {
+                keys[j * instance.numTasks + t] = ((long) schedule.startTime(j, t) << 32) | (j * instance.numTasks + t);
+            }
+        }
+        Arrays.sort(keys);
+
+        for(long key : keys) {
+            this.jobs[nextToSet++] = (int) key / instance.numTasks;
         }
     }
 
@@ -77,6 +76,31 @@ public class JobNumbers extends Encoding {
         return new Schedule(instance, startTimes);
     }
 
+    /** Makespan of the schedule given by toSchedule(), computed without building it.
+     * Only the time at which each job and each machine is freed is tracked, in buffers owned by this encoding:
+     * nothing is allocated after the first call, but an encoding must not be evaluated by several threads at once. */
+    public int makespan() {
+        if(machineFree == null) {
+            machineFree = new int[instance.numMachines];
+            jobFree = new int[instance.numJobs];
+            nextTask = new int[instance.numJobs];
+        } else {
+            Arrays.fill(machineFree, 0);
+            Arrays.fill(jobFree, 0);
+            Arrays.fill(nextTask, 0);
+        }
+        int makespan = 0;
+        for(int job : jobs) {
+            int op = job * instance.numTasks + nextTask[job]++;
+            int machine = instance.machine(op);
+            int end = Math.max(jobFree[job], machineFree[machine]) + instance.duration(op);
+            jobFree[job] = end;
+            machineFree[machine] = end;
+            makespan = Math.max(makespan, end);
+        }
+        return makespan;
+    }
+
     @Override
     public String toString() {
         return Arrays.toString(Arrays.copyOfRange(jobs,0, nextToSet));
@@ -4,9 +4,7 @@ import jobshop.Encoding;
 import jobshop.Instance;
 import jobshop.Schedule;
 
-import java.util.Comparator;
-import java.util.Optional;
-import java.util.stream.IntStream;
+import java.util.Arrays;
 
 public class ResourceOrder extends Encoding {
 
@@ -38,15 +36,20 @@ public class ResourceOrder extends Encoding {
         this.tasksByMachine = new Task[pb.numMachines][];
         this.nextFreeSlot = new int[instance.numMachines];
 
+        // for each machine, the start time and job of its tasks packed in a long
+        // (start time in the high bits) so that sorting them gives their order on the machine
+        long[] keys = new long[pb.numJobs];
         for(int m = 0 ; m<schedule.pb.numMachines ; m++) {
-            final int machine = m;
+            for(int j = 0 ; j < pb.numJobs ; j++) {
+                keys[j] = ((long) schedule.startTime(j, pb.task_with_machine(j, m)) << 32) | j;
+            }
+            Arrays.sort(keys);
 
-            // for thi machine, find all tasks that are executed on it and sort them by their start time
-            tasksByMachine[m] =
-                    IntStream.range(0, pb.numJobs) // all job numbers
-                            .mapToObj(j -> new Task(j, pb.task_with_machine(j, machine))) // all tasks on this machine (one per job)
-                            .sorted(Comparator.comparing(t -> schedule.startTime(t.job, t.task))) // sorted by start time
-                            .toArray(Task[]::new); // as new array and store in tasksByMachine
+            tasksByMachine[m] = new Task[pb.numJobs];
+            for(int k = 0 ; k < pb.numJobs ; k++) {
+                int job = (int) keys[k];
+                tasksByMachine[m][k] = new Task(job, pb.task_with_machine(job, m));
+            }
 
             // indicate that all tasks have been initialized for machine m
             nextFreeSlot[m] = instance.numJobs;
@@ -55,60 +58,27 @@ public class ResourceOrder extends Encoding {
 
     @Override
     public Schedule toSchedule() {
-        // indicate for each task that have been scheduled, its start time
-        int [][] startTimes = new int [instance.numJobs][instance.numTasks];
-
-        // for each job, how many tasks have been scheduled (0 initially)
-        int[] nextToScheduleByJob = new int[instance.numJobs];
-
-        // for each machine, how many tasks have been scheduled (0 initially)
-        int[] nextToScheduleByMachine = new int[instance.numMachines];
-
-        // for each machine, earliest time at which the machine can be used
-        int[] releaseTimeOfMachine = new int[instance.numMachines];
-
-
-        // loop while there remains a job that has unscheduled tasks
-        while(IntStream.range(0, instance.numJobs).anyMatch(m -> nextToScheduleByJob[m] < instance.numTasks)) {
-
-            // selects a task that has noun scheduled predecessor on its job and machine :
-            //  - it is the next to be schedule on a machine
-            //  - it is the next to be scheduled on its job
-            // if there is no such task, we have cyclic dependency and the solution is invalid
-            Optional<Task> schedulable =
-                    IntStream.range(0, instance.numMachines) // all machines ...
-                    .filter(m -> nextToScheduleByMachine[m] < instance.numJobs) // ... with unscheduled jobs
-                    .mapToObj(m -> this.tasksByMachine[m][nextToScheduleByMachine[m]]) // tasks that are next to schedule on a machine ...
-                    .filter(task -> task.task == nextToScheduleByJob[task.job])  // ... and on their job
-                    .findFirst(); // select the first one if any
-
-            if(schedulable.isPresent()) {
-                // we found a schedulable task, lets call it t
-                Task t = schedulable.get();
-                int machine = instance.machine(t);
-
-                // compute the earliest start time (est) of the task
-                int est = t.task == 0 ? 0 : startTimes[t.job][t.task-1] + instance.duration(t.job, t.task-1);
-                est = Math.max(est, releaseTimeOfMachine[instance.machine(t)]);
-                startTimes[t.job][t.task] = est;
-
-                // mark the task as scheduled
-                nextToScheduleByJob[t.job]++;
-                nextToScheduleByMachine[machine]++;
-                // increase the release time of the machine
-                releaseTimeOfMachine[machine] = est + instance.duration(t);
-            } else {
-                // no tasks are schedulable, there is no solution for this resource ordering
-                return null;
-            }
+        return toSchedule(new TopologicalDecoder(instance));
+    }
+
+    /** Builds the schedule of this resource order, using the buffers of the given decoder.
+     * Throws an exception if the order contains a cycle, i.e. if there is no solution for this resource ordering. */
+    public Schedule toSchedule(TopologicalDecoder decoder) {
+        if(!decoder.decode(this)) {
+            throw new RuntimeException("Cyclic resource order, no schedule can be built from it");
         }
-        // we exited the loop : all tasks have been scheduled successfully
-        return new Schedule(instance, startTimes);
+        return decoder.toSchedule();
     }
 
     /** Creates an exact copy of this resource order. */
     public ResourceOrder copy() {
-        return new ResourceOrder(this.toSchedule());
+        ResourceOrder copy = new ResourceOrder(instance);
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            // tasks are immutable and can be shared between the two orders
+            System.arraycopy(tasksByMachine[m], 0, copy.tasksByMachine[m], 0, instance.numJobs);
+            copy.nextFreeSlot[m] = nextFreeSlot[m];
+        }
+        return copy;
     }
 
     @Override
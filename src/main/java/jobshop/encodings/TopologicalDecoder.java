@@ -0,0 +1,89 @@
+package jobshop.encodings;
+
+import jobshop.Instance;
+import jobshop.Schedule;
+
+/** Decodes resource orders into schedules in linear time.
+ *
+ * The start times are computed by traversing the disjunctive graph of the order in topological order
+ * (Kahn's algorithm on in-degrees). A decoder owns all the buffers needed for that, so one decoder can be
+ * reused to decode many orders of the same instance without allocating anything.
+ * A decoder is not thread safe: use one per thread.
+ */
+public class TopologicalDecoder {
+
+    public final Instance instance;
+
+    /** Start time of each operation (job * numTasks + task) computed by the last successful decoding. */
+    public final int[] startTimes;
+
+    // compact copy of the resource order being decoded
+    private final CompactResourceOrder compact;
+    private final int[] topo;
+    private final int[] indegree;
+
+    private int makespan = -1;
+
+    public TopologicalDecoder(Instance instance) {
+        this.instance = instance;
+        int numOps = instance.numJobs * instance.numTasks;
+        startTimes = new int[numOps];
+        compact = new CompactResourceOrder(instance);
+        topo = new int[numOps];
+        indegree = new int[numOps];
+    }
+
+    /** Computes the start times of all tasks of the given resource order.
+     * Returns false if the order contains a cycle (or is incomplete), in which case no schedule exists. */
+    public boolean decode(ResourceOrder order) {
+        compact.copyFrom(order);
+        return decode(compact);
+    }
+
+    /** Computes the start times of all tasks of the given resource order.
+     * Returns false if the order contains a cycle (or is incomplete), in which case no schedule exists. */
+    public boolean decode(CompactResourceOrder order) {
+        int numOps = startTimes.length;
+        makespan = -1;
+        if(order.topologicalOrder(topo, indegree) != numOps) {
+            return false;
+        }
+        int max = 0;
+        for(int i = 0 ; i < numOps ; i++) {
+            int op = topo[i];
+            int jp = order.jobPred(op);
+            int mp = order.machinePred[op];
+            // both predecessors appear before op in the topological order
+            int est = Math.max(jp < 0 ? 0 : end(jp), mp < 0 ? 0 : end(mp));
+            startTimes[op] = est;
+            max = Math.max(max, est + duration(op));
+        }
+        makespan = max;
+        return true;
+    }
+
+    /** Makespan of the last decoded order, -1 if the last decoding failed. */
+    public int makespan() {
+        return makespan;
+    }
+
+    /** Builds the schedule of the last decoded order. */
+    public Schedule toSchedule() {
+        if(makespan < 0) {
+            throw new RuntimeException("Cyclic resource order, no schedule can be built from it");
+        }
+        int[][] times = new int[instance.numJobs][instance.numTasks];
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            System.arraycopy(startTimes, j * instance.numTasks, times[j], 0, instance.numTasks);
+        }
+        return new Schedule(instance, times);
+    }
+
+    private int duration(int op) {
+        return instance.duration(op);
+    }
+
+    private int end(int op) {
+        return startTimes[op] + duration(op);
+    }
+}
@@ -0,0 +1,374 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Result;
+import jobshop.Schedule;
+import jobshop.SolveMonitor;
+import jobshop.Solver;
+import jobshop.SolverMetrics;
+import jobshop.encodings.JobNumbers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/** Filtered beam search over the tree of the active schedules (Ow and Morton).
+ *
+ * A node is a partial schedule built by the Giffler-Thompson algorithm: its children are the tasks of the
+ * conflict set of the machine with the earliest completion time (see GifflerThompsonSolver). At each depth:
+ * - filter: only the `filterWidth` children of each node that are the best for the priority rule are kept;
+ * - evaluation: each of them is scored by a rollout (its completion by the non-delay greedy with the same rule,
+ *   whose makespan is the score) or, cheaper, by a lower bound (the largest end of a job or of a machine if the
+ *   remaining tasks were run without waiting);
+ * - the `width` children with the best scores form the next beam.
+ * A width and a filter width of 1 with no rollout is the Giffler-Thompson greedy, and larger widths trade time for
+ * quality. Rollouts are complete solutions: the best of them is returned if it beats the leaves of the beam.
+ *
+ * The state of a node (ends of the jobs and the machines, next tasks, remaining work) is held in one compact array,
+ * copied from the parent when the child is created and dropped once the node is expanded; the decisions are kept
+ * as a link to the parent, so the nodes of the beam share the prefixes of their sequences. The nodes of a beam are
+ * expanded in parallel, each thread with its own buffers.
+ */
+public class BeamSearchSolver implements Solver {
+
+    private final int width;
+    private final int filterWidth;
+    private final GreedySolver.Priority priorityRule;
+    private final boolean rollout;
+    private final int numThreads;
+
+    /** Rollouts with EST_LRPT, three children per node and one thread per available processor. */
+    public BeamSearchSolver(int width) {
+        this(width, 3, GreedySolver.Priority.EST_LRPT, true, Runtime.getRuntime().availableProcessors());
+    }
+
+    public BeamSearchSolver(int width, int filterWidth, GreedySolver.Priority priorityRule, boolean rollout, int numThreads) {
+        if (width < 1 || filterWidth < 1) {
+            throw new IllegalArgumentException("The beam and filter widths must be positive: " + width + ", " + filterWidth);
+        }
+        this.width = width;
+        this.filterWidth = filterWidth;
+        this.priorityRule = priorityRule;
+        this.rollout = rollout;
+        this.numThreads = numThreads;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        return solve(instance, deadline, SolveMonitor.NONE);
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline, SolveMonitor monitor) {
+        int numOps = instance.numJobs * instance.numTasks;
+        List<Expander> expanders = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, numThreads); i++) {
+            expanders.add(new Expander(instance, i, Math.max(1, numThreads)));
+        }
+        ExecutorService pool = numThreads > 1 ? Executors.newFixedThreadPool(numThreads) : null;
+        SolverMetrics metrics = monitor.metrics();
+        // best complete sequence of decisions (from a rollout or a leaf)
+        int[] best = null;
+        int bestMakespan = Integer.MAX_VALUE;
+        Result.ExitCause cause = Result.ExitCause.Blocked;
+        try {
+            List<Node> beam = new ArrayList<>();
+            beam.add(Node.root(instance));
+            for (int depth = 0; depth < numOps; depth++) {
+                if (deadline - System.currentTimeMillis() <= 1 || monitor.isCancelled()) {
+                    cause = monitor.isCancelled() ? Result.ExitCause.Cancelled : Result.ExitCause.Timeout;
+                    // the best node is completed by the greedy
+                    Expander e = expanders.get(0);
+                    int makespan = e.rollout(beam.get(0).state);
+                    if (makespan < bestMakespan) {
+                        bestMakespan = makespan;
+                        best = e.sequence(beam.get(0));
+                    }
+                    break;
+                }
+                for (Expander e : expanders) {
+                    e.prepare(beam);
+                }
+                List<Node> children = new ArrayList<>();
+                if (pool == null) {
+                    children.addAll(expanders.get(0).call());
+                } else {
+                    for (Future<List<Node>> f : pool.invokeAll(expanders)) {
+                        children.addAll(f.get());
+                    }
+                }
+                for (Expander e : expanders) {
+                    if (e.bestMakespan < bestMakespan) {
+                        bestMakespan = e.bestMakespan;
+                        best = e.best;
+                        monitor.improved(toSchedule(instance, best), System.currentTimeMillis());
+                    }
+                }
+                if (metrics != null) {
+                    metrics.iterations.increment();
+                    metrics.neighbors.add(children.size());
+                    if (rollout) metrics.decodes.add(children.size());
+                }
+                // the parents are not expanded anymore, only their decisions are needed
+                for (Node node : beam) {
+                    node.state = null;
+                }
+                children.sort((a, b) -> a.score != b.score ? Integer.compare(a.score, b.score) : Long.compare(a.tie, b.tie));
+                beam = new ArrayList<>(children.subList(0, Math.min(width, children.size())));
+            }
+            if (cause == Result.ExitCause.Blocked) {
+                // all nodes are complete schedules
+                Node leaf = beam.get(0);
+                int makespan = Node.makespan(instance, leaf.state);
+                if (makespan < bestMakespan) {
+                    bestMakespan = makespan;
+                    best = expanders.get(0).sequence(leaf);
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (pool != null) pool.shutdownNow();
+        }
+        Schedule schedule = toSchedule(instance, best);
+        monitor.improved(schedule, System.currentTimeMillis());
+        if (schedule.makespan() <= instance.lowerBound()) {
+            cause = Result.ExitCause.ProvedOptimal;
+        }
+        return new Result(instance, schedule, cause);
+    }
+
+    /** Schedule given by a complete sequence of decisions (the job of each task scheduled, in order). */
+    private static Schedule toSchedule(Instance instance, int[] jobs) {
+        JobNumbers order = new JobNumbers(instance);
+        System.arraycopy(jobs, 0, order.jobs, 0, jobs.length);
+        order.nextToSet = jobs.length;
+        return order.toSchedule();
+    }
+
+    /** Node of the tree: the last decision (the job whose next task was scheduled), its parent and the state. */
+    private static final class Node {
+        final Node parent;
+        final int job;
+        final int depth;
+        int score;
+        // order among the children of the same beam with the same score: rank among its siblings for the rule,
+        // then index of the parent and job
+        long tie;
+        // end of each job, end of each machine, next task of each job, remaining work of each job and each
+        // machine, in a single array (null once the node is expanded)
+        int[] state;
+
+        Node(Node parent, int job, int depth, int[] state) {
+            this.parent = parent;
+            this.job = job;
+            this.depth = depth;
+            this.state = state;
+        }
+
+        static Node root(Instance instance) {
+            int n = instance.numJobs;
+            int[] state = new int[3 * n + 2 * instance.numMachines];
+            for (int j = 0; j < n; j++) {
+                for (int t = 0; t < instance.numTasks; t++) {
+                    int d = instance.duration(j, t);
+                    state[2 * n + instance.numMachines + j] += d;
+                    state[3 * n + instance.numMachines + instance.machine(j, t)] += d;
+                }
+            }
+            return new Node(null, -1, 0, state);
+        }
+
+        static int makespan(Instance instance, int[] state) {
+            int makespan = 0;
+            for (int j = 0; j < instance.numJobs; j++) {
+                makespan = Math.max(makespan, state[j]);
+            }
+            return makespan;
+        }
+    }
+
+    /** Expands the nodes of the beam whose rank is congruent to its id modulo the number of expanders. */
+    private class Expander implements Callable<List<Node>> {
+        final Instance instance;
+        final int id;
+        final int stride;
+        // offsets of the parts of a state
+        final int machineEnd, nextTask, jobWork, machineWork;
+        // state of a rollout and the decisions it made
+        final int[] scratch;
+        final int[] decisions;
+        // ready jobs of the conflict set and their priority, remaining work of the jobs (as GreedySolver.ruleValue
+        // expects it) and ready tasks of the rollout
+        final int[] conflict;
+        final long[] keys;
+        final int[] remaining;
+        final DispatchQueue queue;
+
+        List<Node> beam;
+        // best rollout of the last expansion
+        int[] best;
+        int bestMakespan = Integer.MAX_VALUE;
+
+        Expander(Instance instance, int id, int stride) {
+            this.instance = instance;
+            this.id = id;
+            this.stride = stride;
+            int n = instance.numJobs;
+            machineEnd = n;
+            nextTask = n + instance.numMachines;
+            jobWork = 2 * n + instance.numMachines;
+            machineWork = 3 * n + instance.numMachines;
+            scratch = new int[3 * n + 2 * instance.numMachines];
+            decisions = new int[n * instance.numTasks];
+            conflict = new int[n];
+            keys = new long[n];
+            remaining = new int[n];
+            queue = new DispatchQueue(instance);
+        }
+
+        void prepare(List<Node> beam) {
+            this.beam = beam;
+        }
+
+        @Override
+        public List<Node> call() {
+            List<Node> children = new ArrayList<>();
+            for (int i = id; i < beam.size(); i += stride) {
+                Node node = beam.get(i);
+                int size = conflictSet(node.state);
+                // filter: the best children for the priority rule
+                System.arraycopy(node.state, jobWork, remaining, 0, instance.numJobs);
+                for (int c = 0; c < size; c++) {
+                    int job = conflict[c];
+                    keys[c] = ((long) GreedySolver.ruleValue(priorityRule, instance, job, node.state[nextTask + job],
+                            remaining) << 32) | job;
+                }
+                Arrays.sort(keys, 0, size);
+                for (int c = 0; c < Math.min(size, filterWidth); c++) {
+                    int job = (int) keys[c];
+                    int[] state = node.state.clone();
+                    apply(state, job);
+                    Node child = new Node(node, job, node.depth + 1, state);
+                    child.tie = ((long) c << 32) | ((long) i * instance.numJobs + job);
+                    if (rollout) {
+                        child.score = rollout(state);
+                        if (child.score < bestMakespan) {
+                            bestMakespan = child.score;
+                            best = sequence(child);
+                        }
+                    } else {
+                        child.score = lowerBound(state);
+                    }
+                    children.add(child);
+                }
+            }
+            return children;
+        }
+
+        /** Schedules the next task of the job, as early as possible. */
+        void apply(int[] state, int job) {
+            int task = state[nextTask + job];
+            int machine = instance.machine(job, task);
+            int duration = instance.duration(job, task);
+            int end = Math.max(state[job], state[machineEnd + machine]) + duration;
+            state[job] = end;
+            state[machineEnd + machine] = end;
+            state[nextTask + job]++;
+            state[jobWork + job] -= duration;
+            state[machineWork + machine] -= duration;
+        }
+
+        /** Writes in `conflict` the jobs whose next task is in the conflict set of Giffler and Thompson, and returns
+         * their number (0 if the schedule is complete). */
+        int conflictSet(int[] state) {
+            int bestEnd = Integer.MAX_VALUE;
+            int bestMachine = -1;
+            for (int j = 0; j < instance.numJobs; j++) {
+                int task = state[nextTask + j];
+                if (task == instance.numTasks) continue;
+                int machine = instance.machine(j, task);
+                int end = Math.max(state[j], state[machineEnd + machine]) + instance.duration(j, task);
+                if (end < bestEnd) {
+                    bestEnd = end;
+                    bestMachine = machine;
+                }
+            }
+            int size = 0;
+            for (int j = 0; j < instance.numJobs && bestMachine >= 0; j++) {
+                int task = state[nextTask + j];
+                if (task == instance.numTasks || instance.machine(j, task) != bestMachine) continue;
+                int start = Math.max(state[j], state[machineEnd + bestMachine]);
+                if (start < bestEnd || instance.duration(j, task) == 0 && start == bestEnd) {
+                    conflict[size++] = j;
+                }
+            }
+            return size;
+        }
+
+        /** Largest end of a job or a machine if its remaining tasks were run without waiting. */
+        int lowerBound(int[] state) {
+            int bound = 0;
+            for (int j = 0; j < instance.numJobs; j++) {
+                bound = Math.max(bound, state[j] + state[jobWork + j]);
+            }
+            for (int m = 0; m < instance.numMachines; m++) {
+                bound = Math.max(bound, state[machineEnd + m] + state[machineWork + m]);
+            }
+            return bound;
+        }
+
+        /** Completes the state by the non-delay greedy with the priority rule, as GreedySolver does with the EST
+         * rules: among the tasks that can start first, the best one for the rule. Returns the makespan, the decisions
+         * are written in `decisions`. */
+        int rollout(int[] state) {
+            System.arraycopy(state, 0, scratch, 0, state.length);
+            System.arraycopy(scratch, jobWork, remaining, 0, instance.numJobs);
+            queue.clear();
+            for (int m = 0; m < instance.numMachines; m++) {
+                queue.release(m, scratch[machineEnd + m]);
+            }
+            int seq = 0;
+            for (int j = 0; j < instance.numJobs; j++) {
+                int task = scratch[nextTask + j];
+                if (task < instance.numTasks) {
+                    queue.add(j, instance.machine(j, task), scratch[j],
+                            GreedySolver.ruleKey(priorityRule, instance, j, task, remaining, seq++));
+                }
+            }
+            int count = 0;
+            while (!queue.isEmpty()) {
+                int job = queue.peek();
+                queue.remove(job);
+                int machine = instance.machine(job, scratch[nextTask + job]);
+                decisions[count++] = job;
+                apply(scratch, job);
+                remaining[job] = scratch[jobWork + job];
+                queue.release(machine, scratch[machineEnd + machine]);
+                int task = scratch[nextTask + job];
+                if (task < instance.numTasks) {
+                    queue.add(job, instance.machine(job, task), scratch[job],
+                            GreedySolver.ruleKey(priorityRule, instance, job, task, remaining, seq++));
+                }
+            }
+            return Node.makespan(instance, scratch);
+        }
+
+        /** Jobs of the decisions from the root to the node, followed by the decisions of the last rollout if the
+         * node is not complete. */
+        int[] sequence(Node node) {
+            int numOps = instance.numJobs * instance.numTasks;
+            int[] jobs = new int[numOps];
+            int prefix = node.depth;
+            System.arraycopy(decisions, 0, jobs, prefix, numOps - prefix);
+            for (Node n = node; n.parent != null; n = n.parent) {
+                jobs[n.depth - 1] = n.job;
+            }
+            return jobs;
+        }
+    }
+}
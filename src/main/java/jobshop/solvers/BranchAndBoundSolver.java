@@ -0,0 +1,375 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.LowerBound;
+import jobshop.Result;
+import jobshop.Schedule;
+import jobshop.SolveMonitor;
+import jobshop.Solver;
+import jobshop.SolverMetrics;
+
+/** Exact solver: depth-first branch and bound over the order of the operations on each machine.
+ *
+ * A node is a partial selection, i.e. a set of fixed precedences between operations of the same machine. Looking
+ * for a schedule strictly better than the best one known (of makespan UB), every node is first propagated with
+ * the target makespan T = UB - 1, from the heads r and tails q given by the longest paths of the selection:
+ * - immediate selection: if i before j gives r(i) + p(i) + p(j) + q(j) > T, then j is fixed before i;
+ * - edge finding: if an operation c cannot be scheduled before, nor inside, a set of operations of its machine
+ *   without exceeding T, it is fixed after all of them (and symmetrically, before all of them);
+ * until nothing changes. The node is pruned if the selection is cyclic, if two orders of a pair are both
+ * impossible, or if the preemptive one-machine bound of Jackson exceeds T on some machine.
+ * Otherwise the search branches on the two orders of the most constrained pair that is still free.
+ *
+ * The upper bound is seeded with the solution of another solver (a taboo search by default). The result is
+ * ProvedOptimal if the whole tree was explored before the deadline.
+ */
+public class BranchAndBoundSolver implements Solver {
+
+    // solver giving the first upper bound
+    private final Solver upperBound;
+
+    public BranchAndBoundSolver() {
+        this(new TabooSolver(1000, 10, 1, false, Neighborhood.N6));
+    }
+
+    public BranchAndBoundSolver(Solver upperBound) {
+        this.upperBound = upperBound;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        return solve(instance, deadline, SolveMonitor.NONE);
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline, SolveMonitor monitor) {
+        Result seed = upperBound.solve(instance, deadline, monitor);
+        if (seed.schedule.makespan() <= instance.lowerBound()) {
+            return new Result(instance, seed.schedule, Result.ExitCause.ProvedOptimal);
+        }
+        Search search = new Search(instance, seed.schedule, deadline, monitor);
+        search.dfs();
+        Result.ExitCause cause = !search.timedOut ? Result.ExitCause.ProvedOptimal
+                : monitor.isCancelled() ? Result.ExitCause.Cancelled : Result.ExitCause.Timeout;
+        return new Result(instance, search.best, cause);
+    }
+
+    /** State of the search: the selection, with a trail to undo it, and the buffers of the propagation. */
+    private static class Search {
+        final Instance instance;
+        final long deadline;
+        final SolveMonitor monitor;
+        // counters of the solve (one iteration per node), may be null
+        final SolverMetrics metrics;
+        final int n;
+        final int numOps;
+
+        // operation executed by each job on each machine (opOf[machine * n + job])
+        final int[] opOf;
+        final int[] duration;
+        // precedences fixed between the jobs of each machine: before[machine][a * n + b] if a is before b
+        final boolean[][] before;
+        // fixed precedences, in the order they were fixed (machine * n * n + a * n + b)
+        final int[] trail;
+        int trailSize = 0;
+
+        // heads and tails of the operations in the current selection, and a topological order of its graph
+        final int[] head;
+        final int[] tail;
+        final int[] topo;
+        final int[] indegree;
+
+        // buffers of the one-machine computations (indexed by job)
+        final int[] r;
+        final int[] p;
+        final int[] q;
+        final int[] lct;
+        final int[] scratch;
+        final int[] byLct;
+
+        Schedule best;
+        int ub;
+        boolean timedOut = false;
+
+        Search(Instance instance, Schedule seed, long deadline, SolveMonitor monitor) {
+            this.instance = instance;
+            this.deadline = deadline;
+            this.monitor = monitor;
+            this.metrics = monitor.metrics();
+            this.n = instance.numJobs;
+            this.numOps = instance.numJobs * instance.numTasks;
+            opOf = new int[instance.numMachines * n];
+            for (int m = 0; m < instance.numMachines; m++) {
+                for (int j = 0; j < n; j++) {
+                    opOf[m * n + j] = j * instance.numTasks + instance.task_with_machine(j, m);
+                }
+            }
+            duration = new int[numOps];
+            for (int op = 0; op < numOps; op++) {
+                duration[op] = instance.duration(op);
+            }
+            before = new boolean[instance.numMachines][n * n];
+            trail = new int[instance.numMachines * n * n];
+            head = new int[numOps];
+            tail = new int[numOps];
+            topo = new int[numOps];
+            indegree = new int[numOps];
+            r = new int[n];
+            p = new int[n];
+            q = new int[n];
+            lct = new int[n];
+            scratch = new int[n];
+            byLct = new int[n];
+            best = seed;
+            ub = seed.makespan();
+        }
+
+        void dfs() {
+            if (deadline - System.currentTimeMillis() <= 1 || monitor.isCancelled()) {
+                timedOut = true;
+                return;
+            }
+            if (metrics != null) {
+                metrics.iterations.increment();
+            }
+            int mark = trailSize;
+            if (propagate(ub - 1)) {
+                // most constrained free pair: the one whose best order gives the largest bound
+                int bestM = -1, bestA = -1, bestB = -1;
+                int bestValue = -1;
+                for (int m = 0; m < instance.numMachines; m++) {
+                    for (int a = 0; a < n; a++) {
+                        for (int b = a + 1; b < n; b++) {
+                            if (before[m][a * n + b] || before[m][b * n + a]) continue;
+                            int value = Math.min(pairBound(m, a, b), pairBound(m, b, a));
+                            if (value > bestValue) {
+                                bestValue = value;
+                                bestM = m;
+                                bestA = a;
+                                bestB = b;
+                            }
+                        }
+                    }
+                }
+                if (bestM < 0) {
+                    // complete selection: the heads are the start times of a schedule better than the best one
+                    record();
+                } else {
+                    // most promising order first
+                    if (pairBound(bestM, bestB, bestA) < pairBound(bestM, bestA, bestB)) {
+                        int t = bestA;
+                        bestA = bestB;
+                        bestB = t;
+                    }
+                    int child = trailSize;
+                    fix(bestM, bestA, bestB);
+                    dfs();
+                    undo(child);
+                    if (!timedOut) {
+                        fix(bestM, bestB, bestA);
+                        dfs();
+                    }
+                }
+            }
+            undo(mark);
+        }
+
+        /** Length of the path through the operations of jobs a then b on machine m. */
+        int pairBound(int m, int a, int b) {
+            int i = opOf[m * n + a];
+            int j = opOf[m * n + b];
+            return head[i] + duration[i] + duration[j] + tail[j];
+        }
+
+        void record() {
+            int[][] times = new int[n][instance.numTasks];
+            int makespan = 0;
+            for (int op = 0; op < numOps; op++) {
+                times[op / instance.numTasks][op % instance.numTasks] = head[op];
+                makespan = Math.max(makespan, head[op] + duration[op]);
+            }
+            best = new Schedule(instance, times);
+            ub = makespan;
+            monitor.improved(best, System.currentTimeMillis());
+        }
+
+        void fix(int m, int a, int b) {
+            before[m][a * n + b] = true;
+            trail[trailSize++] = (m * n + a) * n + b;
+        }
+
+        /** Removes the precedences fixed after the given size of the trail. */
+        void undo(int mark) {
+            while (trailSize > mark) {
+                int arc = trail[--trailSize];
+                before[arc / (n * n)][arc % (n * n)] = false;
+            }
+        }
+
+        /** Fixes all the precedences implied by the target makespan. Returns false if no schedule of the current
+         * selection can have a makespan of at most `target`. */
+        boolean propagate(int target) {
+            boolean changed = true;
+            while (changed) {
+                if (!heads()) {
+                    return false;
+                }
+                changed = false;
+                for (int m = 0; m < instance.numMachines; m++) {
+                    // immediate selection on pairs
+                    for (int a = 0; a < n; a++) {
+                        for (int b = a + 1; b < n; b++) {
+                            if (before[m][a * n + b] || before[m][b * n + a]) continue;
+                            boolean ab = pairBound(m, a, b) <= target;
+                            boolean ba = pairBound(m, b, a) <= target;
+                            if (!ab && !ba) {
+                                return false;
+                            }
+                            if (!ab) {
+                                fix(m, b, a);
+                                changed = true;
+                            } else if (!ba) {
+                                fix(m, a, b);
+                                changed = true;
+                            }
+                        }
+                    }
+                }
+                if (changed) continue;
+                for (int m = 0; m < instance.numMachines && !changed; m++) {
+                    int found = edgeFinding(m, target, false);
+                    if (found == 0) found = edgeFinding(m, target, true);
+                    if (found < 0) return false;
+                    changed = found > 0;
+                }
+            }
+            for (int m = 0; m < instance.numMachines; m++) {
+                for (int j = 0; j < n; j++) {
+                    int op = opOf[m * n + j];
+                    r[j] = head[op];
+                    p[j] = duration[op];
+                    q[j] = tail[op];
+                }
+                if (LowerBound.preemptiveBound(n, r, p, q, scratch) > target) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** Edge finding on machine m: for every set S of the operations whose latest completion is at most some
+         * value L, and every operation c outside S, if c can neither start nor end before the operations of S
+         * are done by L, then c is fixed after all of them. With `reverse`, the same rule is applied on the
+         * reversed problem (tails as heads) and c is fixed before them.
+         * Returns the number of precedences fixed, or -1 if the operations of S cannot all end by L. */
+        int edgeFinding(int m, int target, boolean reverse) {
+            for (int j = 0; j < n; j++) {
+                int op = opOf[m * n + j];
+                r[j] = reverse ? tail[op] : head[op];
+                p[j] = duration[op];
+                lct[j] = target - (reverse ? head[op] : tail[op]);
+                byLct[j] = j;
+            }
+            // insertion sort by latest completion time (machines hold a few tens of operations)
+            for (int i = 1; i < n; i++) {
+                int x = byLct[i];
+                int k = i - 1;
+                while (k >= 0 && lct[byLct[k]] > lct[x]) {
+                    byLct[k + 1] = byLct[k];
+                    k--;
+                }
+                byLct[k + 1] = x;
+            }
+            int fixed = 0;
+            for (int k = 0; k < n; k++) {
+                // S = byLct[0..k], only once per distinct latest completion time
+                if (k + 1 < n && lct[byLct[k + 1]] == lct[byLct[k]]) continue;
+                int limit = lct[byLct[k]];
+                for (int s = 0; s <= k; s++) {
+                    // S' = operations of S released no earlier than i, that must all be done by `limit`
+                    int i = byLct[s];
+                    int work = 0;
+                    for (int t = 0; t <= k; t++) {
+                        if (r[byLct[t]] >= r[i]) work += p[byLct[t]];
+                    }
+                    if (r[i] + work > limit) {
+                        return -1;
+                    }
+                    for (int u = k + 1; u < n; u++) {
+                        int c = byLct[u];
+                        if (Math.min(r[i], r[c]) + work + p[c] <= limit) continue;
+                        // c is after every operation of S'
+                        for (int t = 0; t <= k; t++) {
+                            int x = byLct[t];
+                            if (r[x] < r[i]) continue;
+                            int from = reverse ? c : x;
+                            int to = reverse ? x : c;
+                            if (before[m][from * n + to]) continue;
+                            if (before[m][to * n + from]) {
+                                return -1;
+                            }
+                            fix(m, from, to);
+                            fixed++;
+                        }
+                    }
+                }
+            }
+            return fixed;
+        }
+
+        /** Computes the heads and tails of the current selection. Returns false if it contains a cycle. */
+        boolean heads() {
+            int numTasks = instance.numTasks;
+            for (int op = 0; op < numOps; op++) {
+                indegree[op] = op % numTasks > 0 ? 1 : 0;
+                head[op] = 0;
+            }
+            for (int m = 0; m < instance.numMachines; m++) {
+                for (int a = 0; a < n; a++) {
+                    for (int b = 0; b < n; b++) {
+                        if (before[m][a * n + b]) indegree[opOf[m * n + b]]++;
+                    }
+                }
+            }
+            int size = 0;
+            for (int op = 0; op < numOps; op++) {
+                if (indegree[op] == 0) topo[size++] = op;
+            }
+            for (int k = 0; k < size; k++) {
+                int op = topo[k];
+                int end = head[op] + duration[op];
+                if (op % numTasks < numTasks - 1) {
+                    head[op + 1] = Math.max(head[op + 1], end);
+                    if (--indegree[op + 1] == 0) topo[size++] = op + 1;
+                }
+                int m = instance.machine(op);
+                int a = op / numTasks;
+                for (int b = 0; b < n; b++) {
+                    if (!before[m][a * n + b]) continue;
+                    int succ = opOf[m * n + b];
+                    head[succ] = Math.max(head[succ], end);
+                    if (--indegree[succ] == 0) topo[size++] = succ;
+                }
+            }
+            if (size < numOps) {
+                return false;
+            }
+            for (int k = numOps - 1; k >= 0; k--) {
+                int op = topo[k];
+                int t = 0;
+                if (op % numTasks < numTasks - 1) {
+                    t = duration[op + 1] + tail[op + 1];
+                }
+                int m = instance.machine(op);
+                int a = op / numTasks;
+                for (int b = 0; b < n; b++) {
+                    if (!before[m][a * n + b]) continue;
+                    int succ = opOf[m * n + b];
+                    t = Math.max(t, duration[succ] + tail[succ]);
+                }
+                tail[op] = t;
+            }
+            return true;
+        }
+    }
+}
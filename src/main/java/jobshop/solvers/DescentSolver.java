@@ -3,21 +3,37 @@ package jobshop.solvers;
 import jobshop.Instance;
 import jobshop.Result;
 import jobshop.Schedule;
+import jobshop.SolveMonitor;
 import jobshop.Solver;
+import jobshop.encodings.CompactResourceOrder;
 import jobshop.encodings.ResourceOrder;
 import jobshop.encodings.Task;
+import jobshop.encodings.TopologicalDecoder;
 
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 public class DescentSolver implements Solver {
 
     private GreedySolver.Priority priorityRule;
+    //Number of threads used to evaluate the neighbors of a solution
+    private int numThreads;
+    //Neighbors of a solution explored at each step
+    private Neighborhood neighborhood;
 
     public DescentSolver(GreedySolver.Priority priorityRule){
+        this(priorityRule, 1);
+    }
+
+    public DescentSolver(GreedySolver.Priority priorityRule, int numThreads){
+        this(priorityRule, numThreads, Neighborhood.N5);
+    }
+
+    public DescentSolver(GreedySolver.Priority priorityRule, int numThreads, Neighborhood neighborhood){
         this.priorityRule = priorityRule;
+        this.numThreads = numThreads;
+        this.neighborhood = neighborhood;
     }
 
 
@@ -28,76 +44,201 @@ public class DescentSolver implements Solver {
         final int firstTask;
         /** index of the last task of the block */
         final int lastTask;
+        /** true if the block starts the critical path, resp. ends it */
+        final boolean startsPath;
+        final boolean endsPath;
 
         Block(int machine, int firstTask, int lastTask) {
+            this(machine, firstTask, lastTask, false, false);
+        }
+
+        Block(int machine, int firstTask, int lastTask, boolean startsPath, boolean endsPath) {
             this.machine = machine;
             this.firstTask = firstTask;
             this.lastTask = lastTask;
+            this.startsPath = startsPath;
+            this.endsPath = endsPath;
         }
     }
 
-    static class Swap {
-        // machine on which to perform the swap
+    /** A change of the order of the tasks of one machine. */
+    abstract static class Move {
+        // machine on which to perform the move
         final int machine;
+
+        Move(int machine) {
+            this.machine = machine;
+        }
+
+        /** Smallest index of the machine whose task is changed by the move. */
+        abstract int lo();
+
+        /** Largest index of the machine whose task is changed by the move. */
+        abstract int hi();
+
+        /** Index, before the move, of the task found at the given index after the move (for lo() <= index <= hi()). */
+        abstract int sourceOf(int index);
+
+        /** Index, before the move, of the task that is moved: it changes places with all the other tasks between lo() and hi(). */
+        abstract int moved();
+
+        /** Apply this move on the given resource order, transforming it into a new solution. */
+        public abstract void applyOn(ResourceOrder order);
+
+        /** Undo this move, that was the last one applied on the given resource order. */
+        public abstract void undoOn(ResourceOrder order);
+
+        abstract void applyOn(CompactResourceOrder order);
+
+        abstract void undoOn(CompactResourceOrder order);
+    }
+
+    static class Swap extends Move {
         // index of one task to be swapped
         final int t1;
         // index of the other task to be swapped
         final int t2;
 
         Swap(int machine, int t1, int t2) {
-            this.machine = machine;
+            super(machine);
             this.t1 = t1;
             this.t2 = t2;
         }
 
+        int lo() {
+            return Math.min(t1, t2);
+        }
+
+        int hi() {
+            return Math.max(t1, t2);
+        }
+
+        int sourceOf(int index) {
+            return index == t1 ? t2 : index == t2 ? t1 : index;
+        }
+
+        int moved() {
+            return t1;
+        }
+
         /** Apply this swap on the given resource order, transforming it into a new solution. */
         public void applyOn(ResourceOrder order) {
             Task t = order.tasksByMachine[machine][t1];
             order.tasksByMachine[machine][t1] = order.tasksByMachine[machine][t2];
             order.tasksByMachine[machine][t2] = t;
         }
+
+        public void undoOn(ResourceOrder order) {
+            applyOn(order);
+        }
+
+        void applyOn(CompactResourceOrder order) {
+            order.swap(machine, t1, t2);
+        }
+
+        void undoOn(CompactResourceOrder order) {
+            order.swap(machine, t1, t2);
+        }
+    }
+
+    /** Moves the task at index `from` of the machine to index `to`, the tasks in between are shifted by one. */
+    static class Insertion extends Move {
+        final int from;
+        final int to;
+
+        Insertion(int machine, int from, int to) {
+            super(machine);
+            this.from = from;
+            this.to = to;
+        }
+
+        int lo() {
+            return Math.min(from, to);
+        }
+
+        int hi() {
+            return Math.max(from, to);
+        }
+
+        int sourceOf(int index) {
+            if (index == to) return from;
+            return from < to ? index + 1 : index - 1;
+        }
+
+        int moved() {
+            return from;
+        }
+
+        public void applyOn(ResourceOrder order) {
+            move(order.tasksByMachine[machine], from, to);
+        }
+
+        public void undoOn(ResourceOrder order) {
+            move(order.tasksByMachine[machine], to, from);
+        }
+
+        void applyOn(CompactResourceOrder order) {
+            order.move(machine, from, to);
+        }
+
+        void undoOn(CompactResourceOrder order) {
+            order.move(machine, to, from);
+        }
+
+        private static void move(Task[] tasks, int from, int to) {
+            Task t = tasks[from];
+            if (from < to) {
+                System.arraycopy(tasks, from + 1, tasks, from, to - from);
+            } else {
+                System.arraycopy(tasks, to, tasks, to + 1, from - to);
+            }
+            tasks[to] = t;
+        }
     }
 
     /** Returns a list of all blocks of the critical path. */
     static List<Block> blocksOfCriticalPath(ResourceOrder order) {
-        //critical path of order
-        List<Task> criticalPath = order.toSchedule().criticalPath();
-        //list of blocks of critical path
-        List<Block> blocksList = new ArrayList<>();
-        Task t = criticalPath.get(0);
-        int machine = order.instance.machine(t);
-        //the position in the order of execution of the machine
-        int firstTask = Arrays.asList(order.tasksByMachine[machine]).indexOf(t);
-        int lastTask = firstTask;
-        for (int i = 1; i < criticalPath.size(); i++) {
-            t = criticalPath.get(i);
-            //verify if both tasks are executed by the same machine
-            if (machine == order.instance.machine(t)) {
-                lastTask++;
-            }
-            else {
-                //verify if a block exist
-                if (firstTask != lastTask) {
-                    blocksList.add(new Block(machine, firstTask, lastTask));
-                }
-                //reset variables
-                machine = order.instance.machine(t);
-                firstTask = Arrays.asList(order.tasksByMachine[machine]).indexOf(t);
-                lastTask = firstTask;
-            }
+        CompactResourceOrder compact = new CompactResourceOrder(order);
+        TopologicalDecoder decoder = new TopologicalDecoder(order.instance);
+        if (!decoder.decode(compact)) {
+            throw new RuntimeException("Cyclic resource order, no schedule can be built from it");
         }
-        if (firstTask != lastTask) {
-            blocksList.add(new Block(machine, firstTask, lastTask));
+        int numOps = compact.rank.length;
+        return blocksOfCriticalPath(compact, decoder.startTimes, new int[numOps], new int[numOps]);
+    }
+
+    /** Returns a list of all blocks of the critical path of the given order, whose start times are already known.
+     * `path` and `bounds` are scratch buffers with one slot per operation. */
+    static List<Block> blocksOfCriticalPath(CompactResourceOrder order, int[] startTimes, int[] path, int[] bounds) {
+        int length = Schedule.criticalPath(order.instance, startTimes, order.machinePred, path);
+        int numBlocks = Schedule.blocks(order.instance, path, length, bounds);
+        List<Block> blocksList = new ArrayList<>(numBlocks);
+        for (int b = 0; b < numBlocks; b++) {
+            int first = path[bounds[2 * b]];
+            int last = path[bounds[2 * b + 1]];
+            int machine = order.instance.machine(first);
+            //positions in the order of execution of the machine
+            blocksList.add(new Block(machine, order.rank[first], order.rank[last],
+                    bounds[2 * b] == 0, bounds[2 * b + 1] == length - 1));
         }
         return blocksList;
     }
 
-    /** For a given block, return the possible swaps for the Nowicki and Smutnicki neighborhood */
+    /** For a given block, return the possible swaps for the Nowicki and Smutnicki neighborhood:
+     * the first two tasks, unless the block starts the critical path, and the last two, unless it ends it. */
     static List<Swap> neighbors(Block block) {
         List<Swap> swapList = new ArrayList<>();
-        swapList.add(new Swap(block.machine, block.firstTask, block.firstTask+1));
-        // if size of Block > 2
-        if (block.firstTask != block.lastTask+1) {
+        // if size of Block == 2, both swaps are the same
+        if (block.lastTask - block.firstTask == 1) {
+            if (!block.startsPath || !block.endsPath) {
+                swapList.add(new Swap(block.machine, block.firstTask, block.lastTask));
+            }
+            return swapList;
+        }
+        if (!block.startsPath) {
+            swapList.add(new Swap(block.machine, block.firstTask, block.firstTask+1));
+        }
+        if (!block.endsPath) {
             swapList.add(new Swap(block.machine, block.lastTask-1, block.lastTask));
         }
         return swapList;
@@ -105,6 +246,11 @@ public class DescentSolver implements Solver {
 
     @Override
     public Result solve(Instance instance, long deadline) {
+        return solve(instance, deadline, SolveMonitor.NONE);
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline, SolveMonitor monitor) {
         /*Initialisation : sinit   Glouton(Pb) : // générer une solution réalisable avec la méthode
         de votre choix;
         • Mémoriser la meilleure solution : s   sinit
@@ -115,37 +261,56 @@ public class DescentSolver implements Solver {
         • Arrêt : pas d’amélioration de la solution ou time out*/
         // Initialize Result with a solution given by GreedySolver
         Result result = new GreedySolver(this.priorityRule).solve(instance,deadline);
-        //order which corresponds to the best schedule
+        monitor.improved(result.schedule, System.currentTimeMillis());
+        //order which corresponds to the current solution, kept in sync with the evaluator
         ResourceOrder order = new ResourceOrder(result.schedule);
-        int best = result.schedule.makespan();
+        SwapEvaluator evaluator = new SwapEvaluator(order);
+        try (NeighborhoodScorer scorer = new NeighborhoodScorer(evaluator, numThreads, monitor.metrics())) {
+            boolean blocked = descend(evaluator, scorer, neighborhood, deadline, monitor);
+            Result.ExitCause cause = evaluator.makespan() <= instance.lowerBound() ? Result.ExitCause.ProvedOptimal
+                    : blocked ? Result.ExitCause.Blocked
+                    : monitor.isCancelled() ? Result.ExitCause.Cancelled : Result.ExitCause.Timeout;
+            return new Result(instance, order.toSchedule(), cause);
+        }
+    }
+
+    /** Moves the order of the evaluator to its best neighbor, as long as it improves the makespan.
+     * Each new order is reported to the monitor, unless it is SolveMonitor.NONE.
+     * Returns true if a local optimum was reached, false if the deadline was reached (or the monitor cancelled) first. */
+    static boolean descend(SwapEvaluator evaluator, NeighborhoodScorer scorer, Neighborhood neighborhood, long deadline,
+                           SolveMonitor monitor) {
+        List<Move> swapList = new ArrayList<>();
+        // scores of the moves, reused from one iteration to the next
+        int[] makespans = new int[16];
         //until the deadline is not reached
-        while((deadline - System.currentTimeMillis()) > 1) {
-            //exit by default (in case that no better order is found)
-            boolean foundBetter = true;
-            //List of Block of Critical Path
-            List<Block> listBlock = blocksOfCriticalPath(order);
-            for (Block block : listBlock){
-                //list of Swap of the current Block
-                List<Swap> swapList = neighbors(block);
-                for (Swap swap: swapList){
-                    //Copy order of result and apply Swap
-                    ResourceOrder optimalOrder = order.copy();
-                    swap.applyOn(optimalOrder);
-                    int makespan = optimalOrder.toSchedule().makespan();
-                    //If Swap return a better result then we actualize Result
-                    if (makespan < best){
-                       if (foundBetter){
-                           foundBetter = false;
-                       }
-                       order = optimalOrder;
-                       best = makespan;
-                    }
+        while((deadline - System.currentTimeMillis()) > 1 && !monitor.isCancelled()) {
+            //all neighbors of the current solution: moves in the blocks of the critical path
+            swapList.clear();
+            neighborhood.moves(evaluator, evaluator.blocksOfCriticalPath(), swapList);
+            //makespan of the order once each move is applied, without building the schedules
+            if (makespans.length < swapList.size()) {
+                makespans = new int[Math.max(swapList.size(), 2 * makespans.length)];
+            }
+            scorer.score(swapList, makespans);
+            //best neighbor of the current solution (the first one in case of tie)
+            Move bestSwap = null;
+            int best = evaluator.makespan();
+            for (int i = 0; i < swapList.size(); i++){
+                if (makespans[i] < best){
+                    bestSwap = swapList.get(i);
+                    best = makespans[i];
                 }
             }
             //If no better order is found, exit
-            if (!foundBetter) result = new Result(order.instance, order.toSchedule(), Result.ExitCause.Blocked);
-            else return result;
+            if (bestSwap == null) {
+                return true;
+            }
+            evaluator.commit(bestSwap);
+            // building the schedule costs a full decode, only done if someone listens
+            if (monitor != SolveMonitor.NONE) {
+                monitor.improved(evaluator.order.toSchedule(), System.currentTimeMillis());
+            }
         }
-        return new Result(result.instance, result.schedule,Result.ExitCause.Timeout);
+        return false;
     }
 }
@@ -0,0 +1,130 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+
+/** Ready tasks of a list scheduler (at most one per job), ordered by earliest start time then by priority.
+ *
+ * The earliest start time of a ready task is the maximum of the release time of its machine and of the end of
+ * the previous task of its job. Tasks whose job is ready before their machine all start when the machine is
+ * released: for each machine they are kept in an "available" heap ordered by priority only, the others in a
+ * "waiting" heap ordered by (end of the job, priority). Releasing a machine moves the tasks whose job is ready into
+ * its available heap, and a heap over the machines keeps the best candidate of each. Each operation is thus
+ * O(log n) and no task is reordered just because its machine was released later.
+ *
+ * Priorities are longs, smaller is better, and must be distinct to make the order deterministic.
+ */
+class DispatchQueue {
+
+    private final Instance instance;
+    // for each machine, ready tasks that can start as soon as the machine is released (keyed by (0, priority))
+    private final IndexedHeap[] available;
+    // for each machine, ready tasks whose job ends after the release of the machine (keyed by (job end, priority))
+    private final IndexedHeap[] waiting;
+    // machines having at least one ready task, keyed by the start time and the priority of their best task
+    private final IndexedHeap machines;
+
+    private final int[] releaseTime;
+    // machine of the ready task of each job
+    private final int[] machineOf;
+    private final long[] priority;
+    private int size = 0;
+
+    DispatchQueue(Instance instance) {
+        this.instance = instance;
+        available = new IndexedHeap[instance.numMachines];
+        waiting = new IndexedHeap[instance.numMachines];
+        available[0] = new IndexedHeap(instance.numJobs);
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            if(m > 0) available[m] = new IndexedHeap(instance.numJobs, available[0]);
+            waiting[m] = new IndexedHeap(instance.numJobs, available[0]);
+        }
+        machines = new IndexedHeap(instance.numMachines);
+        releaseTime = new int[instance.numMachines];
+        machineOf = new int[instance.numJobs];
+        priority = new long[instance.numJobs];
+    }
+
+    /** Removes all tasks and releases all machines at time 0. */
+    void clear() {
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            available[m].clear();
+            waiting[m].clear();
+            releaseTime[m] = 0;
+        }
+        machines.clear();
+        size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Time at which the given machine is released. */
+    int releaseTime(int machine) {
+        return releaseTime[machine];
+    }
+
+    /** Adds the ready task of a job, executed on the given machine, whose previous task ends at `jobEnd`. */
+    void add(int job, int machine, int jobEnd, long priority) {
+        machineOf[job] = machine;
+        this.priority[job] = priority;
+        if(jobEnd <= releaseTime[machine]) {
+            available[machine].push(job, 0, priority);
+        } else {
+            waiting[machine].push(job, jobEnd, priority);
+        }
+        size++;
+        refresh(machine);
+    }
+
+    /** Job of the ready task with the earliest start time and then the smallest priority. */
+    int peek() {
+        int machine = machines.peek();
+        return available[machine].isEmpty() ? waiting[machine].peek() : available[machine].peek();
+    }
+
+    /** Earliest start time of the best ready task. */
+    int peekStart() {
+        return (int) machines.primary(machines.peek());
+    }
+
+    /** Removes the ready task of the given job. */
+    void remove(int job) {
+        int machine = machineOf[job];
+        if(available[machine].contains(job)) {
+            available[machine].remove(job);
+        } else {
+            waiting[machine].remove(job);
+        }
+        size--;
+        refresh(machine);
+    }
+
+    /** The machine is not available before the given time anymore. */
+    void release(int machine, int time) {
+        releaseTime[machine] = time;
+        IndexedHeap w = waiting[machine];
+        while(!w.isEmpty() && w.primary(w.peek()) <= time) {
+            int job = w.pop();
+            available[machine].push(job, 0, priority[job]);
+        }
+        refresh(machine);
+    }
+
+    /** Updates the position of the machine according to its best ready task. */
+    private void refresh(int machine) {
+        IndexedHeap a = available[machine];
+        IndexedHeap w = waiting[machine];
+        if(a.isEmpty() && w.isEmpty()) {
+            if(machines.contains(machine)) machines.remove(machine);
+            return;
+        }
+        long start = a.isEmpty() ? w.primary(w.peek()) : releaseTime[machine];
+        long best = a.isEmpty() ? w.secondary(w.peek()) : a.secondary(a.peek());
+        if(machines.contains(machine)) {
+            machines.update(machine, start, best);
+        } else {
+            machines.push(machine, start, best);
+        }
+    }
+}
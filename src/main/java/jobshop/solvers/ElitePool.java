@@ -0,0 +1,97 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
+
+/** Bounded set of the best distinct solutions found by a search.
+ *
+ * The pool holds at most `capacity` resource orders, allocated once: a new solution is copied in the slot of the
+ * worst one, and only if it is strictly better and not already in the pool (same Zobrist hash). The memory used
+ * is thus fixed, whatever the length of the search. */
+class ElitePool {
+
+    private final ResourceOrder[] orders;
+    private final int[] makespans;
+    private final long[] hashes;
+    private final ZobristHash zobrist;
+    private int size = 0;
+
+    ElitePool(Instance instance, int capacity) {
+        orders = new ResourceOrder[capacity];
+        for (int i = 0; i < capacity; i++) {
+            orders[i] = new ResourceOrder(instance);
+        }
+        makespans = new int[capacity];
+        hashes = new long[capacity];
+        zobrist = new ZobristHash(instance, 0);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return size == orders.length;
+    }
+
+    /** Solution in the given slot. It must not be modified, copy it first. */
+    ResourceOrder get(int i) {
+        return orders[i];
+    }
+
+    int makespan(int i) {
+        return makespans[i];
+    }
+
+    /** Slot of the best solution of the pool. */
+    int best() {
+        int best = 0;
+        for (int i = 1; i < size; i++) {
+            if (makespans[i] < makespans[best]) best = i;
+        }
+        return best;
+    }
+
+    /** Slot of the worst solution of the pool. */
+    int worst() {
+        int worst = 0;
+        for (int i = 1; i < size; i++) {
+            if (makespans[i] > makespans[worst]) worst = i;
+        }
+        return worst;
+    }
+
+    /** Adds a copy of the order to the pool, in place of the worst solution if the pool is full.
+     * Returns false if the order is already in the pool or is not better than the worst one of a full pool. */
+    boolean offer(ResourceOrder order, int makespan) {
+        long hash = zobrist.hash(order);
+        for (int i = 0; i < size; i++) {
+            if (hashes[i] == hash) return false;
+        }
+        int slot;
+        if (isFull()) {
+            slot = worst();
+            if (makespan >= makespans[slot]) return false;
+        } else {
+            slot = size++;
+        }
+        for (int m = 0; m < order.instance.numMachines; m++) {
+            System.arraycopy(order.tasksByMachine[m], 0, orders[slot].tasksByMachine[m], 0, order.instance.numJobs);
+            orders[slot].nextFreeSlot[m] = order.nextFreeSlot[m];
+        }
+        makespans[slot] = makespan;
+        hashes[slot] = hash;
+        return true;
+    }
+
+    /** Number of positions of the machines where the two orders have different tasks. */
+    static int distance(ResourceOrder a, ResourceOrder b) {
+        int distance = 0;
+        for (int m = 0; m < a.instance.numMachines; m++) {
+            for (int k = 0; k < a.instance.numJobs; k++) {
+                if (!a.tasksByMachine[m][k].equals(b.tasksByMachine[m][k])) distance++;
+            }
+        }
+        return distance;
+    }
+}
@@ -0,0 +1,177 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Result;
+import jobshop.Schedule;
+import jobshop.Solver;
+
+/** Giffler and Thompson's generator of active (or non-delay) schedules, with a priority rule of GreedySolver.
+ *
+ * At each step, among the ready tasks (the first unscheduled task of each job):
+ * - active: the task with the earliest completion time C* is found, and the conflict set is made of the ready
+ *   tasks of its machine that can start before C*;
+ * - non-delay: the task with the earliest start time S* is found, and the conflict set is made of the ready
+ *   tasks of its machine that can start at S*.
+ * The priority rule chooses the task of the conflict set that is scheduled next, as early as possible.
+ * Every active schedule can be built this way, in particular an optimal one, which is not the case of the
+ * schedules built by GreedySolver.
+ *
+ * The ready tasks are kept in heaps (one item per job), as in DispatchQueue: for each machine, the tasks whose job
+ * is ready before the machine is released ("available", they all start at the release time) and the other ones
+ * ("waiting", they start at the end of their job). Each group is kept in two heaps: by priority (resp. end of the
+ * job) to extract the conflict set, and by duration (resp. completion time) to find the earliest completion
+ * time of the machine. A heap over the machines gives C* (or S*). A task goes at most once from waiting to
+ * available, so each decision takes O(log n) amortized time.
+ */
+public class GifflerThompsonSolver implements Solver {
+
+    private final GreedySolver.Priority priorityRule;
+    private final boolean nonDelay;
+
+    public GifflerThompsonSolver(GreedySolver.Priority priorityRule) {
+        this(priorityRule, false);
+    }
+
+    /** Builds non-delay schedules if `nonDelay` is set, active ones otherwise. */
+    public GifflerThompsonSolver(GreedySolver.Priority priorityRule, boolean nonDelay) {
+        this.priorityRule = priorityRule;
+        this.nonDelay = nonDelay;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        return new Result(instance, new Generator(instance).run(), Result.ExitCause.Blocked);
+    }
+
+    /** State of one construction: items of the heaps are jobs. */
+    private class Generator {
+        final Instance instance;
+        // ready tasks that start at the release time of their machine, by priority and by duration
+        final IndexedHeap[] available;
+        final IndexedHeap[] availableByDuration;
+        // ready tasks that start at the end of their job, by end of the job and by completion time
+        final IndexedHeap[] waiting;
+        final IndexedHeap[] waitingByEnd;
+        // machines having ready tasks, by earliest completion (active) or start (non-delay) time of these tasks
+        final IndexedHeap machines;
+
+        final int[] releaseTime;
+        final int[] jobEnd;
+        final int[] nextTask;
+        // processing time of the tasks of each job not scheduled yet
+        final int[] remainingTime;
+        final int[][] startTimes;
+        int seq = 0;
+
+        Generator(Instance instance) {
+            this.instance = instance;
+            int n = instance.numJobs;
+            available = new IndexedHeap[instance.numMachines];
+            waiting = new IndexedHeap[instance.numMachines];
+            availableByDuration = new IndexedHeap[instance.numMachines];
+            waitingByEnd = new IndexedHeap[instance.numMachines];
+            // the two heaps of a group partition the ready tasks and share their keys
+            IndexedHeap byPriority = new IndexedHeap(n);
+            IndexedHeap byTime = new IndexedHeap(n);
+            for (int m = 0; m < instance.numMachines; m++) {
+                available[m] = new IndexedHeap(n, byPriority);
+                waiting[m] = new IndexedHeap(n, byPriority);
+                availableByDuration[m] = new IndexedHeap(n, byTime);
+                waitingByEnd[m] = new IndexedHeap(n, byTime);
+            }
+            machines = new IndexedHeap(instance.numMachines);
+            releaseTime = new int[instance.numMachines];
+            jobEnd = new int[n];
+            nextTask = new int[n];
+            remainingTime = new int[n];
+            startTimes = new int[n][instance.numTasks];
+            for (int j = 0; j < n; j++) {
+                for (int t = 0; t < instance.numTasks; t++) {
+                    remainingTime[j] += instance.duration(j, t);
+                }
+            }
+        }
+
+        Schedule run() {
+            for (int j = 0; j < instance.numJobs; j++) {
+                add(j);
+            }
+            while (!machines.isEmpty()) {
+                int machine = machines.peek();
+                int bound = (int) machines.primary(machine);
+                // conflict set: the tasks of the machine starting before C* (active) or at S* (non-delay)
+                migrate(machine, nonDelay ? bound : bound - 1);
+                if (available[machine].isEmpty()) {
+                    // the task completing at C* has a zero duration and starts at C*
+                    migrate(machine, bound);
+                }
+                int job = available[machine].peek();
+                int task = nextTask[job];
+                int start = Math.max(jobEnd[job], releaseTime[machine]);
+                int end = start + instance.duration(job, task);
+                available[machine].remove(job);
+                availableByDuration[machine].remove(job);
+                startTimes[job][task] = start;
+                jobEnd[job] = end;
+                nextTask[job]++;
+                remainingTime[job] -= instance.duration(job, task);
+                releaseTime[machine] = end;
+                migrate(machine, end);
+                refresh(machine);
+                if (nextTask[job] < instance.numTasks) {
+                    add(job);
+                }
+            }
+            return new Schedule(instance, startTimes);
+        }
+
+        /** Adds the next task of the job to the ready tasks of its machine. */
+        void add(int job) {
+            int task = nextTask[job];
+            int machine = instance.machine(job, task);
+            int duration = instance.duration(job, task);
+            long priority = GreedySolver.ruleKey(priorityRule, instance, job, task, remainingTime, seq++);
+            if (jobEnd[job] <= releaseTime[machine]) {
+                available[machine].push(job, 0, priority);
+                availableByDuration[machine].push(job, duration, 0);
+            } else {
+                waiting[machine].push(job, jobEnd[job], priority);
+                waitingByEnd[machine].push(job, jobEnd[job] + duration, 0);
+            }
+            refresh(machine);
+        }
+
+        /** Makes available the waiting tasks of the machine whose job ends at or before `time`. */
+        void migrate(int machine, int time) {
+            IndexedHeap w = waiting[machine];
+            while (!w.isEmpty() && w.primary(w.peek()) <= time) {
+                int job = w.pop();
+                waitingByEnd[machine].remove(job);
+                available[machine].push(job, 0, w.secondary(job));
+                availableByDuration[machine].push(job, instance.duration(job, nextTask[job]), 0);
+            }
+        }
+
+        /** Updates the position of the machine according to its ready tasks. */
+        void refresh(int machine) {
+            IndexedHeap a = availableByDuration[machine];
+            IndexedHeap w = nonDelay ? waiting[machine] : waitingByEnd[machine];
+            if (a.isEmpty() && w.isEmpty()) {
+                if (machines.contains(machine)) machines.remove(machine);
+                return;
+            }
+            long time = Long.MAX_VALUE;
+            if (!a.isEmpty()) {
+                time = releaseTime[machine] + (nonDelay ? 0 : a.primary(a.peek()));
+            }
+            if (!w.isEmpty()) {
+                time = Math.min(time, w.primary(w.peek()));
+            }
+            if (machines.contains(machine)) {
+                machines.update(machine, time, 0);
+            } else {
+                machines.push(machine, time, 0);
+            }
+        }
+    }
+}
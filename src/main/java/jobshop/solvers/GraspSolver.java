@@ -0,0 +1,209 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Result;
+import jobshop.SolveMonitor;
+import jobshop.Solver;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/** GRASP (Greedy Randomized Adaptive Search Procedure): randomized greedy construction followed by a descent,
+ * repeated until the deadline.
+ *
+ * At each step of the construction, the candidates are the feasible tasks (those with the earliest start time
+ * for the EST rules). The restricted candidate list keeps the candidates whose value for the priority rule is
+ * within `alpha` of the best one: value <= best + alpha * (worst - best). The task is drawn at random from it, so
+ * alpha = 0 follows the rule (ties broken at random) and alpha = 1 picks any candidate.
+ * Restarts run on several threads, each with its own random generator (seeded by the seed of the solver and the
+ * index of the thread) and its own buffers; they share the best solution found.
+ */
+public class GraspSolver implements Solver {
+
+    private final GreedySolver.Priority priorityRule;
+    private final double alpha;
+    private final int numThreads;
+    private final long seed;
+
+    /** Uses one thread per available processor. */
+    public GraspSolver(GreedySolver.Priority priorityRule, double alpha) {
+        this(priorityRule, alpha, Runtime.getRuntime().availableProcessors(), 0);
+    }
+
+    public GraspSolver(GreedySolver.Priority priorityRule, double alpha, int numThreads, long seed) {
+        if (alpha < 0 || alpha > 1) {
+            throw new IllegalArgumentException("alpha must be in [0, 1]: " + alpha);
+        }
+        this.priorityRule = priorityRule;
+        this.alpha = alpha;
+        this.numThreads = numThreads;
+        this.seed = seed;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        return solve(instance, deadline, SolveMonitor.NONE);
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline, SolveMonitor monitor) {
+        Incumbent shared = new Incumbent(monitor, instance.lowerBound());
+        if (numThreads <= 1) {
+            new Restarts(instance, new Random(seed)).run(deadline, shared);
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+            try {
+                List<Future<?>> restarts = new ArrayList<>();
+                for (int i = 0; i < numThreads; i++) {
+                    Restarts r = new Restarts(instance, new Random(seed + i));
+                    restarts.add(pool.submit(() -> r.run(deadline, shared)));
+                }
+                for (Future<?> f : restarts) {
+                    f.get();
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                throw new RuntimeException(e);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        return new Result(instance, shared.get().schedule, shared.exitCause(Result.ExitCause.Timeout));
+    }
+
+    /** Construction and descent loop of one thread, with all the buffers it reuses from one restart to the next. */
+    private class Restarts {
+        final Instance instance;
+        final Random random;
+        final boolean est;
+
+        // task objects, shared by all the orders built (tasks[job * numTasks + task])
+        final Task[] tasks;
+        final ResourceOrder order;
+
+        // jobs having tasks left to schedule, and the state of the partial schedule
+        final int[] readyJobs;
+        final int[] nextTask;
+        final int[] remainingTime;
+        final int[] jobEnd;
+        final int[] releaseTime;
+        // candidates of the current step and their value for the priority rule
+        final int[] candidates;
+        final int[] values;
+
+        Restarts(Instance instance, Random random) {
+            this.instance = instance;
+            this.random = random;
+            this.est = priorityRule.name().startsWith("EST");
+            tasks = new Task[instance.numJobs * instance.numTasks];
+            for (int j = 0; j < instance.numJobs; j++) {
+                for (int t = 0; t < instance.numTasks; t++) {
+                    tasks[j * instance.numTasks + t] = new Task(j, t);
+                }
+            }
+            order = new ResourceOrder(instance);
+            readyJobs = new int[instance.numJobs];
+            nextTask = new int[instance.numJobs];
+            remainingTime = new int[instance.numJobs];
+            jobEnd = new int[instance.numJobs];
+            releaseTime = new int[instance.numMachines];
+            candidates = new int[instance.numJobs];
+            values = new int[instance.numJobs];
+        }
+
+        void run(long deadline, Incumbent shared) {
+            construct();
+            SwapEvaluator evaluator = new SwapEvaluator(order);
+            try (NeighborhoodScorer scorer = new NeighborhoodScorer(evaluator, 1, shared.metrics())) {
+                while (true) {
+                    DescentSolver.descend(evaluator, scorer, Neighborhood.N5, deadline, SolveMonitor.NONE);
+                    if (evaluator.makespan() < shared.makespan()) {
+                        shared.offer(new Result(instance, order.toSchedule(), Result.ExitCause.Blocked));
+                    }
+                    if (deadline - System.currentTimeMillis() <= 1 || shared.shouldStop()) {
+                        return;
+                    }
+                    construct();
+                    evaluator.rebuild();
+                }
+            }
+        }
+
+        /** Builds a new solution in `order` with the randomized priority rule. */
+        void construct() {
+            int numReady = instance.numJobs;
+            for (int j = 0; j < instance.numJobs; j++) {
+                readyJobs[j] = j;
+                nextTask[j] = 0;
+                jobEnd[j] = 0;
+                remainingTime[j] = 0;
+                for (int t = 0; t < instance.numTasks; t++) {
+                    remainingTime[j] += instance.duration(j, t);
+                }
+            }
+            for (int m = 0; m < instance.numMachines; m++) {
+                releaseTime[m] = 0;
+                order.nextFreeSlot[m] = 0;
+            }
+
+            while (numReady > 0) {
+                // candidates: ready tasks, restricted to the ones starting first for the EST rules
+                int numCandidates = 0;
+                int earliest = Integer.MAX_VALUE;
+                for (int i = 0; i < numReady; i++) {
+                    int job = readyJobs[i];
+                    int start = est ? start(job) : 0;
+                    if (start < earliest) {
+                        earliest = start;
+                        numCandidates = 0;
+                    }
+                    if (start == earliest) {
+                        candidates[numCandidates++] = i;
+                    }
+                }
+                // restricted candidate list, built in place at the beginning of `candidates`
+                int best = Integer.MAX_VALUE;
+                int worst = Integer.MIN_VALUE;
+                for (int c = 0; c < numCandidates; c++) {
+                    int job = readyJobs[candidates[c]];
+                    values[c] = GreedySolver.ruleValue(priorityRule, instance, job, nextTask[job], remainingTime);
+                    best = Math.min(best, values[c]);
+                    worst = Math.max(worst, values[c]);
+                }
+                double threshold = best + alpha * ((double) worst - best);
+                int rclSize = 0;
+                for (int c = 0; c < numCandidates; c++) {
+                    if (values[c] <= threshold) {
+                        candidates[rclSize++] = candidates[c];
+                    }
+                }
+                int i = candidates[random.nextInt(rclSize)];
+
+                // schedule the chosen task
+                int job = readyJobs[i];
+                int task = nextTask[job];
+                int machine = instance.machine(job, task);
+                int end = start(job) + instance.duration(job, task);
+                nextTask[job]++;
+                jobEnd[job] = end;
+                releaseTime[machine] = end;
+                remainingTime[job] -= instance.duration(job, task);
+                order.tasksByMachine[machine][order.nextFreeSlot[machine]++] = tasks[job * instance.numTasks + task];
+                if (nextTask[job] == instance.numTasks) {
+                    readyJobs[i] = readyJobs[--numReady];
+                }
+            }
+        }
+
+        /** Earliest start time of the next task of the job in the partial schedule. */
+        int start(int job) {
+            return Math.max(jobEnd[job], releaseTime[instance.machine(job, nextTask[job])]);
+        }
+    }
+}
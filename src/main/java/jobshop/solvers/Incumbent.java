@@ -0,0 +1,92 @@
+package jobshop.solvers;
+
+import jobshop.Result;
+import jobshop.SolveMonitor;
+import jobshop.SolverMetrics;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/** Best solution found so far, shared between several searches running in parallel.
+ *
+ * The holder is lock-free: a new solution replaces the current one with a compare-and-set,
+ * and only if its makespan is strictly better. Each new best solution is reported to the monitor of the solve,
+ * which also tells the searches when to stop. */
+class Incumbent {
+
+    private static final class Entry {
+        final Result result;
+        final int makespan;
+
+        Entry(Result result, int makespan) {
+            this.result = result;
+            this.makespan = makespan;
+        }
+    }
+
+    private final AtomicReference<Entry> best = new AtomicReference<>();
+    private final SolveMonitor monitor;
+    // lower bound of the makespan: a solution reaching it is optimal
+    private final int lowerBound;
+
+    Incumbent() {
+        this(SolveMonitor.NONE, 0);
+    }
+
+    Incumbent(SolveMonitor monitor, int lowerBound) {
+        this.monitor = monitor;
+        this.lowerBound = lowerBound;
+    }
+
+    /** True once the monitor asked the searches to stop. */
+    boolean isCancelled() {
+        return monitor.isCancelled();
+    }
+
+    /** Counters of the solve, null if they are not wanted. */
+    SolverMetrics metrics() {
+        return monitor.metrics();
+    }
+
+    /** True if the best solution reaches the lower bound, so that it cannot be improved. */
+    boolean isOptimal() {
+        return makespan() <= lowerBound;
+    }
+
+    /** True if the searches should stop: the best solution is optimal or the monitor cancelled the solve. */
+    boolean shouldStop() {
+        return isOptimal() || isCancelled();
+    }
+
+    /** Exit cause of a solve that stopped: ProvedOptimal or Cancelled if that is why, `otherwise` if not. */
+    Result.ExitCause exitCause(Result.ExitCause otherwise) {
+        return isOptimal() ? Result.ExitCause.ProvedOptimal : isCancelled() ? Result.ExitCause.Cancelled : otherwise;
+    }
+
+    /** Makespan of the best solution found so far, Integer.MAX_VALUE if none. */
+    int makespan() {
+        Entry e = best.get();
+        return e == null ? Integer.MAX_VALUE : e.makespan;
+    }
+
+    /** Best solution found so far, null if none. */
+    Result get() {
+        Entry e = best.get();
+        return e == null ? null : e.result;
+    }
+
+    /** Replaces the best solution by the given one if it is strictly better.
+     * Returns true if the given solution is the new best one. */
+    boolean offer(Result result) {
+        Entry candidate = new Entry(result, result.schedule.makespan());
+        while(true) {
+            Entry current = best.get();
+            if(current != null && current.makespan <= candidate.makespan) {
+                return false;
+            }
+            if(best.compareAndSet(current, candidate)) {
+                monitor.improved(result.schedule, System.currentTimeMillis());
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package jobshop.solvers;
+
+import java.util.Arrays;
+
+/** Binary min-heap of integer items in [0, capacity), each item appearing at most once.
+ *
+ * Items are ordered by a primary key, then a secondary key, then by their own value, so that ties are
+ * broken deterministically. The position of each item in the heap is indexed, which allows to change the
+ * keys of an item already in the heap in O(log n). Nothing is allocated after construction.
+ */
+class IndexedHeap {
+
+    private final int[] heap;
+    // position of each item in the heap, -1 if absent
+    private final int[] position;
+    private final long[] primary;
+    private final long[] secondary;
+    private int size = 0;
+
+    IndexedHeap(int capacity) {
+        heap = new int[capacity];
+        position = new int[capacity];
+        primary = new long[capacity];
+        secondary = new long[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    /** Heap of at most `capacity` items, that shares the keys and positions of the items of another heap.
+     * Several heaps can partition the same set of items this way: an item must be in at most one of them at a time. */
+    IndexedHeap(int capacity, IndexedHeap shared) {
+        heap = new int[capacity];
+        position = shared.position;
+        primary = shared.primary;
+        secondary = shared.secondary;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int item) {
+        int i = position[item];
+        return i >= 0 && i < size && heap[i] == item;
+    }
+
+    /** Removes all items. */
+    void clear() {
+        for(int i = 0 ; i < size ; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /** Item with the smallest keys (the heap must not be empty). */
+    int peek() {
+        return heap[0];
+    }
+
+    /** Item at the given position of the underlying array, for i in [0, size). */
+    int get(int i) {
+        return heap[i];
+    }
+
+    long primary(int item) {
+        return primary[item];
+    }
+
+    long secondary(int item) {
+        return secondary[item];
+    }
+
+    /** Inserts an item that is not in the heap yet. */
+    void push(int item, long primaryKey, long secondaryKey) {
+        primary[item] = primaryKey;
+        secondary[item] = secondaryKey;
+        heap[size] = item;
+        position[item] = size;
+        size++;
+        siftUp(size - 1);
+    }
+
+    /** Removes and returns the item with the smallest keys. */
+    int pop() {
+        int top = heap[0];
+        remove(top);
+        return top;
+    }
+
+    /** Removes an item of the heap. */
+    void remove(int item) {
+        int i = position[item];
+        position[item] = -1;
+        size--;
+        if(i == size) {
+            return;
+        }
+        // the last item fills the hole, then goes up or down
+        int moved = heap[size];
+        heap[i] = moved;
+        position[moved] = i;
+        siftUp(i);
+        siftDown(position[moved]);
+    }
+
+    /** Changes the keys of an item of the heap. */
+    void update(int item, long primaryKey, long secondaryKey) {
+        primary[item] = primaryKey;
+        secondary[item] = secondaryKey;
+        siftUp(position[item]);
+        siftDown(position[item]);
+    }
+
+    private boolean less(int a, int b) {
+        if(primary[a] != primary[b]) return primary[a] < primary[b];
+        if(secondary[a] != secondary[b]) return secondary[a] < secondary[b];
+        return a < b;
+    }
+
+    private void siftUp(int i) {
+        int item = heap[i];
+        while(i > 0) {
+            int parent = (i - 1) >>> 1;
+            if(!less(item, heap[parent])) break;
+            heap[i] = heap[parent];
+            position[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = item;
+        position[item] = i;
+    }
+
+    private void siftDown(int i) {
+        int item = heap[i];
+        while(true) {
+            int child = 2 * i + 1;
+            if(child >= size) break;
+            if(child + 1 < size && less(heap[child + 1], heap[child])) child++;
+            if(!less(heap[child], item)) break;
+            heap[i] = heap[child];
+            position[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = item;
+        position[item] = i;
+    }
+}
@@ -0,0 +1,109 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+
+import java.util.List;
+
+/** Neighborhoods of a resource order built from the blocks of its critical path.
+ *
+ * N5 (Nowicki and Smutnicki) swaps the first two and the last two tasks of each block, except the first two
+ * tasks of the block that starts the critical path and the last two of the one that ends it: these swaps cannot
+ * improve the makespan.
+ * N6 (Balas and Vazacopoulos) moves each task of a block right after its last task or right before its first one.
+ * N7 (Zhang et al.) adds to N6 the moves of the first and the last tasks of a block inside the block.
+ *
+ * Swapping two adjacent tasks of the critical path never creates a cycle. Other moves are only kept if the
+ * sufficient condition of Balas and Vazacopoulos guarantees that they do not create one either: with r the head
+ * and q the tail of an operation, moving u right after v is kept if u has no job successor JS(u) or
+ * d(v) + q(v) >= d(JS(u)) + q(JS(u)), and moving v right before u is kept if v has no job predecessor JP(v)
+ * or r(u) + d(u) >= r(JP(v)) + d(JP(v)). Both tests only read the evaluator, so infeasible moves are rejected
+ * before any schedule is built.
+ */
+public enum Neighborhood {
+    N5 {
+        void moves(SwapEvaluator evaluator, List<DescentSolver.Block> blocks, List<DescentSolver.Move> moves) {
+            for (DescentSolver.Block block : blocks) {
+                moves.addAll(DescentSolver.neighbors(block));
+            }
+        }
+    },
+    N6 {
+        void moves(SwapEvaluator evaluator, List<DescentSolver.Block> blocks, List<DescentSolver.Move> moves) {
+            for (DescentSolver.Block block : blocks) {
+                insertions(evaluator, block, moves);
+            }
+        }
+    },
+    N7 {
+        void moves(SwapEvaluator evaluator, List<DescentSolver.Block> blocks, List<DescentSolver.Move> moves) {
+            for (DescentSolver.Block block : blocks) {
+                insertions(evaluator, block, moves);
+                int f = block.firstTask;
+                int l = block.lastTask;
+                // first task inside the block (right after the last one is already in N6)
+                for (int t = f + 2; t < l; t++) {
+                    forward(evaluator, block.machine, f, t, moves);
+                }
+                // last task inside the block (right before the first one is already in N6)
+                for (int t = l - 2; t > f; t--) {
+                    backward(evaluator, block.machine, l, t, moves);
+                }
+            }
+        }
+    };
+
+    /** Adds to `moves` the moves of this neighborhood for the given blocks of the critical path of the order of
+     * the evaluator. */
+    abstract void moves(SwapEvaluator evaluator, List<DescentSolver.Block> blocks, List<DescentSolver.Move> moves);
+
+    /** Moves of N6: each task after the last one of the block, and each task before the first one. */
+    private static void insertions(SwapEvaluator evaluator, DescentSolver.Block block, List<DescentSolver.Move> moves) {
+        int f = block.firstTask;
+        int l = block.lastTask;
+        for (int u = f; u < l; u++) {
+            forward(evaluator, block.machine, u, l, moves);
+        }
+        // with two tasks, moving the last one before the first one is the same swap as above
+        if (l - f > 1) {
+            for (int v = f + 1; v <= l; v++) {
+                backward(evaluator, block.machine, v, f, moves);
+            }
+        }
+    }
+
+    /** Moves the task at index `from` of the machine right after the one at index `to` (from < to). */
+    private static void forward(SwapEvaluator evaluator, int machine, int from, int to, List<DescentSolver.Move> moves) {
+        if (to == from + 1) {
+            moves.add(new DescentSolver.Swap(machine, from, to));
+            return;
+        }
+        Instance instance = evaluator.instance;
+        int u = evaluator.op(machine, from);
+        int v = evaluator.op(machine, to);
+        if (u % instance.numTasks < instance.numTasks - 1) {
+            int js = u + 1;
+            if (instance.duration(v) + evaluator.tail(v) < instance.duration(js) + evaluator.tail(js)) {
+                return;
+            }
+        }
+        moves.add(new DescentSolver.Insertion(machine, from, to));
+    }
+
+    /** Moves the task at index `from` of the machine right before the one at index `to` (to < from). */
+    private static void backward(SwapEvaluator evaluator, int machine, int from, int to, List<DescentSolver.Move> moves) {
+        if (to == from - 1) {
+            moves.add(new DescentSolver.Swap(machine, to, from));
+            return;
+        }
+        Instance instance = evaluator.instance;
+        int v = evaluator.op(machine, from);
+        int u = evaluator.op(machine, to);
+        if (v % instance.numTasks > 0) {
+            int jp = v - 1;
+            if (evaluator.head(u) + instance.duration(u) < evaluator.head(jp) + instance.duration(jp)) {
+                return;
+            }
+        }
+        moves.add(new DescentSolver.Insertion(machine, from, to));
+    }
+}
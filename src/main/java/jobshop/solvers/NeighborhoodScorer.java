@@ -0,0 +1,159 @@
+package jobshop.solvers;
+
+import jobshop.SolverMetrics;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.TopologicalDecoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/** Scores all the moves of a neighborhood, possibly on several threads.
+ *
+ * Moves whose makespan can be deduced from the heads and tails of the evaluator are scored directly.
+ * With more than one thread, the others (the improving ones, that need an exact evaluation) are spread over
+ * a fixed pool of workers: each worker applies them on its own copy of the resource order and decodes it.
+ * The score of the i-th move is always written at index i, so that the result does not depend on the
+ * number of threads. The scorer must be closed to release its threads.
+ * If metrics are given, each call counts as an iteration, and the moves scored, the exact evaluations and the
+ * infeasible moves are counted.
+ */
+class NeighborhoodScorer implements AutoCloseable {
+
+    private final SwapEvaluator evaluator;
+    private final int numThreads;
+    private final ExecutorService pool;
+    private final List<Worker> workers = new ArrayList<>();
+    // counters of the solve, may be null
+    private final SolverMetrics metrics;
+
+    // incremented at each call to score(), the order of the evaluator may have changed in between
+    private int version = 0;
+    // indices of the moves that need an exact evaluation
+    private int[] pending = new int[16];
+
+    NeighborhoodScorer(SwapEvaluator evaluator, int numThreads) {
+        this(evaluator, numThreads, null);
+    }
+
+    NeighborhoodScorer(SwapEvaluator evaluator, int numThreads, SolverMetrics metrics) {
+        this.evaluator = evaluator;
+        this.numThreads = numThreads;
+        this.metrics = metrics;
+        if (numThreads > 1) {
+            this.pool = Executors.newFixedThreadPool(numThreads, r -> {
+                Thread t = new Thread(r);
+                t.setDaemon(true);
+                return t;
+            });
+            for (int i = 0; i < numThreads; i++) {
+                workers.add(new Worker(i));
+            }
+        } else {
+            this.pool = null;
+        }
+    }
+
+    /** Writes in makespans[i] the makespan obtained by applying moves.get(i) on the current order of the
+     * evaluator (SwapEvaluator.INFEASIBLE if the move creates a cycle). The order is left unchanged. */
+    void score(List<DescentSolver.Move> moves, int[] makespans) {
+        version++;
+        int numPending = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            makespans[i] = evaluator.shortcut(moves.get(i));
+            if (makespans[i] < 0) {
+                if (numPending == pending.length) {
+                    pending = Arrays.copyOf(pending, 2 * numPending);
+                }
+                pending[numPending++] = i;
+            }
+        }
+        if (numPending <= 1 || pool == null) {
+            for (int k = 0; k < numPending; k++) {
+                makespans[pending[k]] = evaluator.evaluate(moves.get(pending[k]));
+            }
+        } else {
+            evaluateInParallel(moves, makespans, numPending);
+        }
+        if (metrics != null) {
+            metrics.iterations.increment();
+            metrics.neighbors.add(moves.size());
+            metrics.decodes.add(numPending);
+            int numInfeasible = 0;
+            for (int k = 0; k < numPending; k++) {
+                if (makespans[pending[k]] == SwapEvaluator.INFEASIBLE) numInfeasible++;
+            }
+            metrics.infeasible.add(numInfeasible);
+        }
+    }
+
+    /** Spreads the exact evaluation of the pending moves over the workers. */
+    private void evaluateInParallel(List<DescentSolver.Move> moves, int[] makespans, int numPending) {
+        for (Worker worker : workers) {
+            worker.prepare(moves, makespans, numPending);
+        }
+        try {
+            for (Future<Void> f : pool.invokeAll(workers.subList(0, Math.min(numThreads, numPending)))) {
+                f.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Evaluates the pending moves whose rank is congruent to its id modulo the number of threads. */
+    private class Worker implements Callable<Void> {
+        final int id;
+        // copy of the resource order of the evaluator and buffers to decode it
+        final ResourceOrder scratch;
+        final TopologicalDecoder decoder;
+        // version of the solution the scratch order is a copy of
+        int copied = -1;
+
+        List<DescentSolver.Move> moves;
+        int[] makespans;
+        int numPending;
+
+        Worker(int id) {
+            this.id = id;
+            this.scratch = new ResourceOrder(evaluator.instance);
+            this.decoder = new TopologicalDecoder(evaluator.instance);
+        }
+
+        void prepare(List<DescentSolver.Move> moves, int[] makespans, int numPending) {
+            this.moves = moves;
+            this.makespans = makespans;
+            this.numPending = numPending;
+        }
+
+        @Override
+        public Void call() {
+            if (copied != version) {
+                for (int m = 0; m < scratch.instance.numMachines; m++) {
+                    System.arraycopy(evaluator.order.tasksByMachine[m], 0, scratch.tasksByMachine[m], 0, scratch.instance.numJobs);
+                    scratch.nextFreeSlot[m] = evaluator.order.nextFreeSlot[m];
+                }
+                copied = version;
+            }
+            for (int k = id; k < numPending; k += numThreads) {
+                DescentSolver.Move move = moves.get(pending[k]);
+                move.applyOn(scratch);
+                makespans[pending[k]] = decoder.decode(scratch) ? decoder.makespan() : SwapEvaluator.INFEASIBLE;
+                move.undoOn(scratch);
+            }
+            return null;
+        }
+    }
+}
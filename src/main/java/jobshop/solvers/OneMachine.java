@@ -0,0 +1,120 @@
+package jobshop.solvers;
+
+import jobshop.LowerBound;
+
+/** Bounds and solutions for the one-machine relaxation of the job-shop: the operations of one machine, each with
+ * a head r (release date), a duration p and a tail q (time needed after its completion), the other machines being
+ * assumed to have infinite capacity. The makespan of any schedule is at least the optimum of each relaxation,
+ * and the shifting bottleneck builds schedules from the optimal sequences of these problems.
+ *
+ * Operations are given as parallel arrays indexed from 0 to n-1. The preemptive bound of Jackson is in LowerBound.
+ */
+public final class OneMachine {
+
+    private OneMachine() {}
+
+    /** Schedule of Schrage: whenever the machine is free, start the released operation with the largest tail.
+     * Writes the operations in `sequence` and their start times in `start` (indexed by operation), and returns
+     * the makespan max(start + p + q). O(n²), no allocation. */
+    public static int schrage(int n, int[] r, int[] p, int[] q, int[] sequence, int[] start) {
+        // operations not scheduled yet are the ones in sequence[k..n[
+        for (int i = 0; i < n; i++) sequence[i] = i;
+        int t = Integer.MIN_VALUE;
+        int makespan = Integer.MIN_VALUE;
+        for (int k = 0; k < n; k++) {
+            int chosen = -1;
+            int earliest = -1;
+            for (int i = k; i < n; i++) {
+                int op = sequence[i];
+                if (r[op] <= t && (chosen < 0 || q[op] > q[sequence[chosen]])) chosen = i;
+                if (earliest < 0 || r[op] < r[sequence[earliest]]
+                        || (r[op] == r[sequence[earliest]] && q[op] > q[sequence[earliest]])) earliest = i;
+            }
+            if (chosen < 0) {
+                // the machine is idle until the next release date
+                chosen = earliest;
+                t = r[sequence[chosen]];
+            }
+            int op = sequence[chosen];
+            sequence[chosen] = sequence[k];
+            sequence[k] = op;
+            start[op] = t;
+            t += p[op];
+            makespan = Math.max(makespan, t + q[op]);
+        }
+        return makespan;
+    }
+
+    /** Optimal sequence of the one-machine problem (minimizing max(start + p + q)) by the branch and bound of
+     * Carlier, written in `sequence`. Returns its makespan. After `maxNodes` nodes, the search stops and the best
+     * sequence found so far is returned. r and q are modified during the search but restored on return. */
+    public static int carlier(int n, int[] r, int[] p, int[] q, int[] sequence, long maxNodes) {
+        Carlier search = new Carlier(n, r, p, q, maxNodes);
+        search.branch();
+        System.arraycopy(search.best, 0, sequence, 0, n);
+        return search.upperBound;
+    }
+
+    private static final class Carlier {
+        final int n;
+        final int[] r, p, q;
+        final int[] sequence, start, remaining;
+        final int[] best;
+        int upperBound = Integer.MAX_VALUE;
+        long nodesLeft;
+
+        Carlier(int n, int[] r, int[] p, int[] q, long maxNodes) {
+            this.n = n;
+            this.r = r;
+            this.p = p;
+            this.q = q;
+            sequence = new int[n];
+            start = new int[n];
+            remaining = new int[n];
+            best = new int[n];
+            nodesLeft = maxNodes;
+        }
+
+        void branch() {
+            if (nodesLeft-- <= 0) return;
+            int makespan = schrage(n, r, p, q, sequence, start);
+            if (makespan < upperBound) {
+                upperBound = makespan;
+                System.arraycopy(sequence, 0, best, 0, n);
+            }
+            // critical path: b is the last operation reaching the makespan, a the first one of the block
+            // of operations run without idle time that ends with b
+            int b = n - 1;
+            while (start[sequence[b]] + p[sequence[b]] + q[sequence[b]] != makespan) b--;
+            int a = b;
+            while (a > 0 && start[sequence[a - 1]] + p[sequence[a - 1]] == start[sequence[a]]) a--;
+            // c: the last operation of the block with a smaller tail than b, if none the schedule is optimal
+            int c = b - 1;
+            while (c >= a && q[sequence[c]] >= q[sequence[b]]) c--;
+            if (c < a) return;
+            // J = the operations after c in the block: c goes either before or after all of them
+            int minR = Integer.MAX_VALUE, minQ = Integer.MAX_VALUE, sumP = 0;
+            for (int k = c + 1; k <= b; k++) {
+                int op = sequence[k];
+                minR = Math.min(minR, r[op]);
+                minQ = Math.min(minQ, q[op]);
+                sumP += p[op];
+            }
+            int op = sequence[c];
+            int old = r[op];
+            r[op] = Math.max(old, minR + sumP);
+            if (bound(minR, sumP, minQ, op) < upperBound) branch();
+            r[op] = old;
+            old = q[op];
+            q[op] = Math.max(old, minQ + sumP);
+            if (bound(minR, sumP, minQ, op) < upperBound) branch();
+            q[op] = old;
+        }
+
+        /** Lower bound of a child node: the preemptive bound, and the bound of J plus c. */
+        int bound(int minR, int sumP, int minQ, int c) {
+            int withC = Math.min(minR, r[c]) + sumP + p[c] + Math.min(minQ, q[c]);
+            return Math.max(withC, LowerBound.preemptiveBound(n, r, p, q, remaining));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Result;
+import jobshop.SolveMonitor;
+import jobshop.Solver;
+import jobshop.encodings.JobNumbers;
+import jobshop.encodings.ResourceOrder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/** Multi-start taboo search: independent taboo trajectories run in parallel until the deadline.
+ *
+ * The first trajectory of each thread starts from a greedy solution (one priority rule per thread),
+ * the following ones from random solutions. All trajectories share the best solution found so far,
+ * which they use as aspiration criterion. */
+public class ParallelTabooSolver implements Solver {
+
+    private final TabooSolver taboo;
+    //Number of trajectories running at the same time
+    private final int numThreads;
+
+    /** Uses one thread per available processor. */
+    public ParallelTabooSolver(int maxIter, int durationTaboo) {
+        this(maxIter, durationTaboo, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelTabooSolver(int maxIter, int durationTaboo, int numThreads) {
+        this.taboo = new TabooSolver(maxIter, durationTaboo);
+        this.numThreads = numThreads;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        return solve(instance, deadline, SolveMonitor.NONE);
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline, SolveMonitor monitor) {
+        Incumbent shared = new Incumbent(monitor, instance.lowerBound());
+        ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<?>> trajectories = new ArrayList<>();
+            for (int i = 0; i < numThreads; i++) {
+                final int id = i;
+                trajectories.add(pool.submit(() -> restarts(instance, deadline, id, shared)));
+            }
+            for (Future<?> trajectory : trajectories) {
+                trajectory.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        } finally {
+            pool.shutdownNow();
+        }
+        return new Result(instance, shared.get().schedule, shared.exitCause(Result.ExitCause.Timeout));
+    }
+
+    /** Runs taboo trajectories one after the other until the deadline. */
+    private void restarts(Instance instance, long deadline, int id, Incumbent shared) {
+        GreedySolver.Priority[] rules = GreedySolver.Priority.values();
+        Random generator = new Random(id);
+        // first start: a greedy solution with the priority rule of this thread
+        Result greedy = new GreedySolver(rules[id % rules.length]).solve(instance, deadline);
+        // offered before any search, so that there is a solution even if the deadline is already reached
+        shared.offer(greedy);
+        ResourceOrder start = new ResourceOrder(greedy.schedule);
+        while (deadline - System.currentTimeMillis() > 1 && !shared.shouldStop()) {
+            taboo.search(start, deadline, shared);
+            start = randomStart(instance, generator);
+        }
+    }
+
+    /** Resource order of a random solution (random job numbers). */
+    static ResourceOrder randomStart(Instance instance, Random generator) {
+        JobNumbers sol = new JobNumbers(instance);
+        for (int j = 0; j < instance.numJobs; j++) {
+            for (int t = 0; t < instance.numTasks; t++) {
+                sol.jobs[sol.nextToSet++] = j;
+            }
+        }
+        // Fisher–Yates shuffle
+        for (int i = sol.jobs.length - 1; i > 0; i--) {
+            int index = generator.nextInt(i + 1);
+            int tmp = sol.jobs[index];
+            sol.jobs[index] = sol.jobs[i];
+            sol.jobs[i] = tmp;
+        }
+        return new ResourceOrder(sol.toSchedule());
+    }
+}
@@ -10,6 +10,11 @@ public class RandomSolver implements Solver {
 
     @Override
     public Result solve(Instance instance, long deadline) {
+        return solve(instance, deadline, SolveMonitor.NONE);
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline, SolveMonitor monitor) {
         Random generator = new Random(0);
 
         JobNumbers sol = new JobNumbers(instance);
@@ -20,11 +25,28 @@ public class RandomSolver implements Solver {
             }
         }
         Schedule best = sol.toSchedule();
+        monitor.improved(best, System.currentTimeMillis());
+        int bestMakespan = best.makespan();
+        int lowerBound = instance.lowerBound();
+        SolverMetrics metrics = monitor.metrics();
         while(deadline - System.currentTimeMillis() > 1) {
+            if(bestMakespan <= lowerBound) {
+                return new Result(instance, best, Result.ExitCause.ProvedOptimal);
+            }
+            if(monitor.isCancelled()) {
+                return new Result(instance, best, Result.ExitCause.Cancelled);
+            }
             shuffleArray(sol.jobs, generator);
-            Schedule s = sol.toSchedule();
-            if(s.makespan() < best.makespan()) {
-                best = s;
+            // only the makespan is needed to compare with the best, the schedule is built for a new best only
+            int makespan = sol.makespan();
+            if(metrics != null) {
+                metrics.iterations.increment();
+                metrics.decodes.increment();
+            }
+            if(makespan < bestMakespan) {
+                best = sol.toSchedule();
+                bestMakespan = makespan;
+                monitor.improved(best, System.currentTimeMillis());
             }
         }
 
@@ -0,0 +1,109 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Result;
+import jobshop.SolveMonitor;
+import jobshop.Solver;
+import jobshop.encodings.ResourceOrder;
+
+import java.util.Random;
+
+/** Taboo search with an elite pool and path relinking, in the spirit of i-TSAB (Nowicki and Smutnicki).
+ *
+ * The pool is first filled with the results of taboo searches started from greedy solutions (one per priority
+ * rule) and then from random ones. Until the deadline, two solutions A and B of the pool are drawn at random and
+ * A is moved toward B, one insertion at a time, until half of the positions where they differ are fixed: the
+ * intermediate solution shares the structure of both but lies in a region that has not been searched yet.
+ * A taboo search is restarted from it and its result goes back to the pool, in place of the worst solution if it
+ * is better. The pool has a fixed size, so the memory used does not grow with the length of the search.
+ */
+public class RelinkingSolver implements Solver {
+
+    private final TabooSolver taboo;
+    //Number of solutions kept in the elite pool
+    private final int eliteSize;
+    private final long seed;
+
+    public RelinkingSolver(int maxIter, int durationTaboo, int eliteSize) {
+        this(maxIter, durationTaboo, eliteSize, Neighborhood.N6, 0);
+    }
+
+    public RelinkingSolver(int maxIter, int durationTaboo, int eliteSize, Neighborhood neighborhood, long seed) {
+        if (eliteSize < 2) {
+            throw new IllegalArgumentException("The elite pool must hold at least two solutions: " + eliteSize);
+        }
+        this.taboo = new TabooSolver(maxIter, durationTaboo, 1, false, neighborhood);
+        this.eliteSize = eliteSize;
+        this.seed = seed;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        return solve(instance, deadline, SolveMonitor.NONE);
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline, SolveMonitor monitor) {
+        Incumbent shared = new Incumbent(monitor, instance.lowerBound());
+        ElitePool pool = new ElitePool(instance, eliteSize);
+        Random random = new Random(seed);
+
+        // initial pool: taboo searches from the greedy solutions, then from random ones
+        GreedySolver.Priority[] rules = GreedySolver.Priority.values();
+        int starts = 0;
+        do {
+            ResourceOrder start = starts < rules.length
+                    ? new ResourceOrder(new GreedySolver(rules[starts]).solve(instance, deadline).schedule)
+                    : ParallelTabooSolver.randomStart(instance, random);
+            starts++;
+            Result result = taboo.search(start, deadline, shared);
+            pool.offer(new ResourceOrder(result.schedule), result.schedule.makespan());
+        } while (!pool.isFull() && deadline - System.currentTimeMillis() > 1 && !shared.shouldStop());
+
+        while (deadline - System.currentTimeMillis() > 1 && !shared.shouldStop()) {
+            int a = random.nextInt(pool.size());
+            int b = random.nextInt(pool.size() - 1);
+            if (b >= a) b++;
+            ResourceOrder current = pool.get(a).copy();
+            ResourceOrder target = pool.get(b);
+            relink(new SwapEvaluator(current), target, ElitePool.distance(current, target) / 2, random);
+            Result result = taboo.search(current, deadline, shared);
+            pool.offer(new ResourceOrder(result.schedule), result.schedule.makespan());
+        }
+        return new Result(instance, shared.get().schedule, shared.exitCause(Result.ExitCause.Timeout));
+    }
+
+    /** Moves the order of the evaluator toward the target until they differ on at most `remaining` positions.
+     * Each step takes a machine (starting from a random one) and moves to the first position where the two
+     * orders differ the task that the target has there. Steps that would create a cycle are skipped, and the
+     * relinking stops early if no machine can make progress. */
+    static void relink(SwapEvaluator evaluator, ResourceOrder target, int remaining, Random random) {
+        ResourceOrder current = evaluator.order;
+        Instance instance = current.instance;
+        int distance = ElitePool.distance(current, target);
+        while (distance > remaining) {
+            boolean moved = false;
+            int first = random.nextInt(instance.numMachines);
+            for (int i = 0; i < instance.numMachines && !moved; i++) {
+                int m = (first + i) % instance.numMachines;
+                int k = 0;
+                while (k < instance.numJobs && current.tasksByMachine[m][k].equals(target.tasksByMachine[m][k])) {
+                    k++;
+                }
+                if (k == instance.numJobs) {
+                    continue;
+                }
+                // the task that the target has at position k is after k in the current order
+                int p = k + 1;
+                while (!current.tasksByMachine[m][p].equals(target.tasksByMachine[m][k])) {
+                    p++;
+                }
+                moved = evaluator.commit(new DescentSolver.Insertion(m, p, k));
+            }
+            if (!moved) {
+                return;
+            }
+            distance = ElitePool.distance(current, target);
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Result;
+import jobshop.Schedule;
+import jobshop.SolveMonitor;
+import jobshop.Solver;
+import jobshop.SolverMetrics;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/** Shifting bottleneck (Adams, Balas and Zawack): the machines are sequenced one at a time.
+ *
+ * The disjunctive graph only holds the sequences of the machines fixed so far. For each other machine, the heads
+ * and tails of its operations in this graph define a one-machine problem, solved by the branch and bound of
+ * Carlier (see OneMachine). The machine whose problem has the largest optimum is the bottleneck: its optimal
+ * sequence is fixed, then each machine fixed before is reoptimized in turn (its sequence is removed and replaced by
+ * the optimal one given the others), for a few rounds or until the makespan of the partial graph stops decreasing.
+ *
+ * The one-machine problems of the machines not fixed yet are independent and solved in parallel. A sequence that
+ * would create a cycle (the heads and tails ignore the paths between operations of the same machine) is replaced
+ * by the order of the heads. Once the deadline is reached, the remaining machines are sequenced by their heads.
+ */
+public class ShiftingBottleneckSolver implements Solver {
+
+    private final int numThreads;
+    // nodes of Carlier's branch and bound per one-machine problem, the best sequence found is used beyond
+    private final long maxNodes;
+    // rounds of reoptimization of the fixed machines after each new bottleneck
+    private final int reoptimizationRounds;
+
+    /** Uses one thread per available processor. */
+    public ShiftingBottleneckSolver() {
+        this(Runtime.getRuntime().availableProcessors(), 1000, 5);
+    }
+
+    public ShiftingBottleneckSolver(int numThreads, long maxNodes, int reoptimizationRounds) {
+        this.numThreads = numThreads;
+        this.maxNodes = maxNodes;
+        this.reoptimizationRounds = reoptimizationRounds;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        return solve(instance, deadline, SolveMonitor.NONE);
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline, SolveMonitor monitor) {
+        ExecutorService pool = numThreads > 1 ? Executors.newFixedThreadPool(numThreads) : null;
+        try {
+            Graph graph = new Graph(instance);
+            SolverMetrics metrics = monitor.metrics();
+            List<Integer> fixed = new ArrayList<>();
+            boolean stopped = false;
+            while (fixed.size() < instance.numMachines) {
+                graph.update();
+                stopped = stopped || deadline - System.currentTimeMillis() <= 1 || monitor.isCancelled();
+                if (stopped) {
+                    // no time left: the remaining machines are sequenced by their heads
+                    for (int m = 0; m < instance.numMachines; m++) {
+                        if (!graph.isFixed(m)) {
+                            graph.fix(m, graph.byHeads(m));
+                            int makespan = graph.update();
+                            assert makespan >= 0 : "sequencing machine " + m + " by heads created a cycle";
+                            fixed.add(m);
+                        }
+                    }
+                    break;
+                }
+
+                // bottleneck: the machine whose one-machine problem has the largest optimum
+                List<Callable<int[]>> problems = new ArrayList<>();
+                for (int m = 0; m < instance.numMachines; m++) {
+                    if (!graph.isFixed(m)) {
+                        int machine = m;
+                        problems.add(() -> graph.sequence(machine, maxNodes));
+                    }
+                }
+                int[] bottleneck = null;
+                for (int[] solution : solveAll(pool, problems)) {
+                    if (bottleneck == null || solution[0] > bottleneck[0]) {
+                        bottleneck = solution;
+                    }
+                }
+                if (metrics != null) metrics.iterations.add(problems.size());
+                graph.fixAcyclic(bottleneck);
+                fixed.add(bottleneck[1]);
+
+                // reoptimization of the machines fixed before, in the order they were fixed
+                reoptimize(graph, fixed.subList(0, fixed.size() - 1), reoptimizationRounds, deadline, metrics);
+            }
+            // last rounds on the complete graph, until no machine improves it
+            reoptimize(graph, fixed, Integer.MAX_VALUE, deadline, metrics);
+
+            Schedule schedule = graph.toSchedule();
+            monitor.improved(schedule, System.currentTimeMillis());
+            Result.ExitCause cause = schedule.makespan() <= instance.lowerBound() ? Result.ExitCause.ProvedOptimal
+                    : !stopped ? Result.ExitCause.Blocked
+                    : monitor.isCancelled() ? Result.ExitCause.Cancelled : Result.ExitCause.Timeout;
+            return new Result(instance, schedule, cause);
+        } finally {
+            if (pool != null) pool.shutdownNow();
+        }
+    }
+
+    /** Reoptimizes each given machine in turn, for the given number of rounds or until a round does not improve the
+     * makespan of the graph (whose heads and tails must be up to date). A new sequence is kept only if it does not
+     * make the graph longer. */
+    private void reoptimize(Graph graph, List<Integer> machines, int rounds, long deadline, SolverMetrics metrics) {
+        int makespan = graph.update();
+        for (int round = 0; round < rounds && !machines.isEmpty(); round++) {
+            int before = makespan;
+            for (int i = 0; i < machines.size() && deadline - System.currentTimeMillis() > 1; i++) {
+                int m = machines.get(i);
+                int[] previous = graph.unfix(m);
+                graph.update();
+                graph.fixAcyclic(graph.sequence(m, maxNodes));
+                if (metrics != null) metrics.iterations.increment();
+                int after = graph.update();
+                if (after > makespan) {
+                    // the optimum of the machine alone does not always shorten the whole graph
+                    graph.unfix(m);
+                    graph.fix(m, previous);
+                    graph.update();
+                } else {
+                    makespan = after;
+                }
+            }
+            if (makespan >= before) break;
+        }
+    }
+
+    private static List<int[]> solveAll(ExecutorService pool, List<Callable<int[]>> problems) {
+        List<int[]> solutions = new ArrayList<>();
+        try {
+            if (pool == null) {
+                for (Callable<int[]> problem : problems) {
+                    solutions.add(problem.call());
+                }
+            } else {
+                for (Future<int[]> f : pool.invokeAll(problems)) {
+                    solutions.add(f.get());
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        return solutions;
+    }
+
+    /** Disjunctive graph with the sequences of the fixed machines, and the heads and tails of its operations.
+     * Operations are numbered job * numTasks + task. */
+    private static class Graph {
+        final Instance instance;
+        final int numOps;
+        // sequence of jobs of each machine, null if not fixed
+        final int[][] sequences;
+        // next and previous operation on the machine, -1 if none or if the machine is not fixed
+        final int[] machineNext;
+        final int[] machinePrev;
+        // longest path from the source to the start of each operation, and from its end to the sink
+        final int[] heads;
+        final int[] tails;
+        final int[] topo;
+        final int[] indegree;
+
+        Graph(Instance instance) {
+            this.instance = instance;
+            numOps = instance.numJobs * instance.numTasks;
+            sequences = new int[instance.numMachines][];
+            machineNext = new int[numOps];
+            machinePrev = new int[numOps];
+            Arrays.fill(machineNext, -1);
+            Arrays.fill(machinePrev, -1);
+            heads = new int[numOps];
+            tails = new int[numOps];
+            topo = new int[numOps];
+            indegree = new int[numOps];
+        }
+
+        boolean isFixed(int machine) {
+            return sequences[machine] != null;
+        }
+
+        int op(int job, int machine) {
+            return job * instance.numTasks + instance.task_with_machine(job, machine);
+        }
+
+        /** Fixes the sequence of jobs of the machine. */
+        void fix(int machine, int[] jobs) {
+            sequences[machine] = jobs;
+            for (int k = 1; k < jobs.length; k++) {
+                int a = op(jobs[k - 1], machine);
+                int b = op(jobs[k], machine);
+                machineNext[a] = b;
+                machinePrev[b] = a;
+            }
+        }
+
+        /** Removes the sequence of the machine and returns it. */
+        int[] unfix(int machine) {
+            int[] jobs = sequences[machine];
+            for (int job : jobs) {
+                int op = op(job, machine);
+                machineNext[op] = -1;
+                machinePrev[op] = -1;
+            }
+            sequences[machine] = null;
+            return jobs;
+        }
+
+        /** Fixes the sequence of a solution {value, machine, jobs...} of a one-machine problem, or the order of the
+         * heads if it creates a cycle. The heads must be up to date. */
+        void fixAcyclic(int[] solution) {
+            int machine = solution[1];
+            int[] byHeads = byHeads(machine);
+            fix(machine, Arrays.copyOfRange(solution, 2, solution.length));
+            if (update() < 0) {
+                unfix(machine);
+                fix(machine, byHeads);
+                int makespan = update();
+                assert makespan >= 0 : "sequencing machine " + machine + " by heads created a cycle";
+            }
+        }
+
+        /** Jobs of the machine by increasing head, then decreasing tail: a path between two of its operations goes
+         * from the one with the smallest head (or the largest tail if the operations in between take no time). */
+        int[] byHeads(int machine) {
+            Integer[] sorted = new Integer[instance.numJobs];
+            for (int j = 0; j < sorted.length; j++) sorted[j] = j;
+            Arrays.sort(sorted, Comparator.<Integer>comparingInt(j -> heads[op(j, machine)])
+                    .thenComparing(j -> -tails[op(j, machine)]));
+            int[] jobs = new int[sorted.length];
+            for (int k = 0; k < jobs.length; k++) jobs[k] = sorted[k];
+            return jobs;
+        }
+
+        /** Solves the one-machine problem of the machine given the current heads and tails (read only, so several
+         * machines can be solved at once). Returns {optimum, machine, jobs in sequence...}. */
+        int[] sequence(int machine, long maxNodes) {
+            int n = instance.numJobs;
+            int[] r = new int[n];
+            int[] p = new int[n];
+            int[] q = new int[n];
+            for (int j = 0; j < n; j++) {
+                int op = op(j, machine);
+                r[j] = heads[op];
+                p[j] = instance.duration(op);
+                q[j] = tails[op];
+            }
+            int[] sequence = new int[n];
+            int value = OneMachine.carlier(n, r, p, q, sequence, maxNodes);
+            int[] solution = new int[n + 2];
+            solution[0] = value;
+            solution[1] = machine;
+            System.arraycopy(sequence, 0, solution, 2, n);
+            return solution;
+        }
+
+        /** Computes the heads and tails and returns the makespan of the graph, -1 if it has a cycle. */
+        int update() {
+            int numTasks = instance.numTasks;
+            for (int op = 0; op < numOps; op++) {
+                indegree[op] = (op % numTasks > 0 ? 1 : 0) + (machinePrev[op] >= 0 ? 1 : 0);
+                heads[op] = 0;
+                tails[op] = 0;
+            }
+            // Kahn's algorithm, heads are propagated in topological order
+            int size = 0;
+            for (int op = 0; op < numOps; op++) {
+                if (indegree[op] == 0) topo[size++] = op;
+            }
+            for (int i = 0; i < size; i++) {
+                int op = topo[i];
+                int end = heads[op] + instance.duration(op);
+                if (op % numTasks < numTasks - 1) {
+                    heads[op + 1] = Math.max(heads[op + 1], end);
+                    if (--indegree[op + 1] == 0) topo[size++] = op + 1;
+                }
+                int next = machineNext[op];
+                if (next >= 0) {
+                    heads[next] = Math.max(heads[next], end);
+                    if (--indegree[next] == 0) topo[size++] = next;
+                }
+            }
+            if (size < numOps) {
+                return -1;
+            }
+            int makespan = 0;
+            for (int i = numOps - 1; i >= 0; i--) {
+                int op = topo[i];
+                if (op % numTasks < numTasks - 1) tails[op] = Math.max(tails[op], tails[op + 1] + instance.duration(op + 1));
+                int next = machineNext[op];
+                if (next >= 0) tails[op] = Math.max(tails[op], tails[next] + instance.duration(next));
+                makespan = Math.max(makespan, heads[op] + instance.duration(op) + tails[op]);
+            }
+            return makespan;
+        }
+
+        /** Schedule of the graph once all the machines are fixed. */
+        Schedule toSchedule() {
+            ResourceOrder order = new ResourceOrder(instance);
+            for (int m = 0; m < instance.numMachines; m++) {
+                for (int job : sequences[m]) {
+                    order.tasksByMachine[m][order.nextFreeSlot[m]++] = new Task(job, instance.task_with_machine(job, m));
+                }
+            }
+            return order.toSchedule();
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.encodings.CompactResourceOrder;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+import jobshop.encodings.TopologicalDecoder;
+
+import java.util.Arrays;
+import java.util.List;
+
+/** Evaluates moves (swaps and insertions) on a resource order without decoding the whole schedule.
+ *
+ * The evaluator keeps, for every operation of the order it is attached to, its head (earliest start time)
+ * and its tail (length of the longest path from its completion to the end of the schedule). A swap of two
+ * adjacent tasks of a machine is scored in constant time with the estimate of Taillard / Nowicki and Smutnicki,
+ * which is exact as soon as it does not improve on the current makespan. Improving swaps are confirmed by
+ * applying the swap, reading the makespan and undoing it. Committing a swap updates the heads and tails
+ * incrementally: only the operations that can be reached from the swapped tasks are recomputed.
+ * Other moves are evaluated by decoding a modified copy of the order, and committing them recomputes everything.
+ *
+ * Operations are identified by an integer `job * numTasks + task`.
+ * An evaluator is not thread safe and assumes that nobody else modifies the resource order it is attached to.
+ */
+class SwapEvaluator {
+
+    /** Makespan returned for swaps that would create a cycle in the resource order. */
+    static final int INFEASIBLE = Integer.MAX_VALUE;
+
+    final Instance instance;
+    /** The resource order kept in sync with the evaluator: committed swaps are applied on it. */
+    final ResourceOrder order;
+
+    private final int numOps;
+    private final int numJobs;
+    private final int numTasks;
+
+    // duration of each operation
+    private final int[] duration;
+
+    // compact copy of the order, that gives the machine predecessor and successor of each operation
+    private final CompactResourceOrder compact;
+
+    // earliest start time of each operation
+    private final int[] head;
+    // longest path from the completion of each operation to the end of the schedule
+    private final int[] tail;
+
+    // topological order of the operations and position of each operation in it
+    private final int[] topo;
+    private final int[] topoPos;
+
+    private int makespan;
+
+    // scratch buffers, reused by every commit
+    private final boolean[] dirty;
+    private final int[] stamp;
+    private int epoch = 0;
+    private final int[] stack;
+    private final int[] forward;
+    private final int[] backward;
+    private final int[] positions;
+    private final int[] path;
+    private final int[] bounds;
+    // decodes the compact order while a move that is not an adjacent swap is applied on it
+    private final TopologicalDecoder decoder;
+
+    SwapEvaluator(ResourceOrder order) {
+        this.instance = order.instance;
+        this.order = order;
+        this.numJobs = instance.numJobs;
+        this.numTasks = instance.numTasks;
+        this.numOps = numJobs * numTasks;
+
+        duration = new int[numOps];
+        for(int op = 0 ; op < numOps ; op++) {
+            duration[op] = instance.duration(op);
+        }
+        compact = new CompactResourceOrder(instance);
+        head = new int[numOps];
+        tail = new int[numOps];
+        topo = new int[numOps];
+        topoPos = new int[numOps];
+        dirty = new boolean[numOps];
+        stamp = new int[numOps];
+        stack = new int[numOps];
+        forward = new int[numOps];
+        backward = new int[numOps];
+        positions = new int[numOps];
+        path = new int[numOps];
+        bounds = new int[numOps];
+        decoder = new TopologicalDecoder(instance);
+
+        if(!rebuild()) {
+            throw new RuntimeException("Cyclic resource order, no schedule can be built from it");
+        }
+    }
+
+    /** Makespan of the resource order in its current state. */
+    int makespan() {
+        return makespan;
+    }
+
+    /** Start time of the given task in the schedule of the current resource order. */
+    int startTime(Task t) {
+        return head[t.job * numTasks + t.task];
+    }
+
+    /** Head of the given operation: its start time in the schedule of the current order. */
+    int head(int op) {
+        return head[op];
+    }
+
+    /** Tail of the given operation: longest path from its completion to the end of the schedule. */
+    int tail(int op) {
+        return tail[op];
+    }
+
+    /** Operation at the given position of the machine in the current order. */
+    int op(int machine, int position) {
+        return compact.get(machine, position);
+    }
+
+    /** Blocks of the critical path of the current order, read from the heads without building the schedule. */
+    List<DescentSolver.Block> blocksOfCriticalPath() {
+        return DescentSolver.blocksOfCriticalPath(compact, head, path, bounds);
+    }
+
+    /** Estimates the makespan obtained by applying the given move.
+     *
+     * For adjacent tasks this is the estimate of Taillard: a lower bound of the new makespan, that is exact
+     * whenever it is greater than or equal to the current makespan. Other moves are evaluated exactly. */
+    int estimate(DescentSolver.Move swap) {
+        int lo = swap.lo();
+        int hi = swap.hi();
+        if(hi != lo + 1) {
+            return evaluate(swap);
+        }
+        int u = compact.get(swap.machine, lo);
+        int v = compact.get(swap.machine, hi);
+
+        // heads of v and u once v is executed before u
+        int rv = Math.max(jobPredEnd(v), machinePredEnd(u));
+        int ru = Math.max(jobPredEnd(u), rv + duration[v]);
+        // tails of u and v once u is executed after v
+        int qu = Math.max(jobSuccTail(u), machineSuccTail(v));
+        int qv = Math.max(jobSuccTail(v), qu + duration[u]);
+
+        return Math.max(rv + duration[v] + qv, ru + duration[u] + qu);
+    }
+
+    /** Returns the makespan of the resource order obtained by applying the given move,
+     * or INFEASIBLE if the move would create a cycle. The resource order is left unchanged. */
+    int evaluate(DescentSolver.Move swap) {
+        int makespan = shortcut(swap);
+        if(makespan >= 0) {
+            return makespan;
+        }
+        if(swap.hi() != swap.lo() + 1) {
+            // decode the compact copy of the order with the move applied
+            swap.applyOn(compact);
+            int result = decoder.decode(compact) ? decoder.makespan() : INFEASIBLE;
+            swap.undoOn(compact);
+            return result;
+        }
+        // exact fallback: apply, read and undo
+        if(!commit(swap)) {
+            return INFEASIBLE;
+        }
+        int result = this.makespan;
+        commit(swap);
+        return result;
+    }
+
+    /** Returns the makespan of the resource order obtained by applying the given swap if it can be deduced from
+     * the heads and tails alone, -1 if it needs an exact evaluation.
+     * This only reads the state of the evaluator, so it can be called from several threads at once. */
+    int shortcut(DescentSolver.Move swap) {
+        int lo = swap.lo();
+        int hi = swap.hi();
+        if(hi != lo + 1) {
+            return -1;
+        }
+        int u = compact.get(swap.machine, lo);
+        int v = compact.get(swap.machine, hi);
+        // the only other path from u to v goes through the job predecessor of v, which then
+        // cannot start before the end of u: if it does, the swap cannot create a cycle
+        int jpv = jobPred(v);
+        if(jpv >= 0 && head[jpv] >= end(u)) {
+            return -1;
+        }
+        int estimate = estimate(swap);
+        // paths that avoid u and v are not longer than the current makespan,
+        // so the estimate is exact as soon as it does not improve on it
+        return estimate >= makespan ? estimate : -1;
+    }
+
+    /** Applies the move on the resource order and updates heads and tails accordingly.
+     * Returns false (and leaves the resource order unchanged) if the move would create a cycle. */
+    boolean commit(DescentSolver.Move swap) {
+        int lo = swap.lo();
+        int hi = swap.hi();
+        if(hi == lo + 1) {
+            compact.swap(swap.machine, lo, hi);
+            if(!reorder(compact.get(swap.machine, lo), compact.get(swap.machine, hi))) {
+                // the swap creates a cycle, revert it
+                compact.swap(swap.machine, lo, hi);
+                return false;
+            }
+            swap.applyOn(order);
+            return true;
+        }
+        // tasks far apart on the machine: recompute everything
+        swap.applyOn(order);
+        if(!rebuild()) {
+            swap.undoOn(order);
+            rebuild();
+            return false;
+        }
+        return true;
+    }
+
+    /** Recomputes everything from the resource order. Returns false if it contains a cycle. */
+    boolean rebuild() {
+        compact.copyFrom(order);
+
+        // topological sort of the disjunctive graph, in-degrees are stored in stamp
+        int size = compact.topologicalOrder(topo, stamp);
+        Arrays.fill(stamp, 0);
+        epoch = 0;
+        if(size != numOps) {
+            return false;
+        }
+
+        for(int i = 0 ; i < numOps ; i++) {
+            int op = topo[i];
+            topoPos[op] = i;
+            head[op] = Math.max(jobPredEnd(op), machinePredEnd(op));
+        }
+        for(int i = numOps - 1 ; i >= 0 ; i--) {
+            int op = topo[i];
+            tail[op] = Math.max(jobSuccTail(op), machineSuccTail(op));
+        }
+        updateMakespan();
+        return true;
+    }
+
+    /** Restores the topological order after u, previously just before v on their machine, has been moved
+     * just after it (Pearce-Kelly), then updates heads and tails. Returns false if this creates a cycle. */
+    private boolean reorder(int v, int u) {
+        int lb = topoPos[u];
+        int ub = topoPos[v];
+
+        // descendants of u that are not after v in the topological order
+        epoch++;
+        int numForward = 0;
+        int top = 0;
+        stack[top++] = u;
+        stamp[u] = epoch;
+        while(top > 0) {
+            int op = stack[--top];
+            forward[numForward++] = topoPos[op];
+            int js = jobSucc(op);
+            int ms = machineSucc(op);
+            for(int succ = js, k = 0 ; k < 2 ; succ = ms, k++) {
+                if(succ < 0 || stamp[succ] == epoch || topoPos[succ] > ub)
+                    continue;
+                if(succ == v)
+                    return false;
+                stamp[succ] = epoch;
+                stack[top++] = succ;
+            }
+        }
+        // ancestors of v that are not before u in the topological order
+        int numBackward = 0;
+        stack[top++] = v;
+        stamp[v] = epoch;
+        while(top > 0) {
+            int op = stack[--top];
+            backward[numBackward++] = topoPos[op];
+            int jp = jobPred(op);
+            int mp = machinePred(op);
+            for(int pred = jp, k = 0 ; k < 2 ; pred = mp, k++) {
+                if(pred < 0 || stamp[pred] == epoch || topoPos[pred] < lb)
+                    continue;
+                stamp[pred] = epoch;
+                stack[top++] = pred;
+            }
+        }
+
+        // ancestors of v take the first freed positions, descendants of u the last ones
+        Arrays.sort(forward, 0, numForward);
+        Arrays.sort(backward, 0, numBackward);
+        int numPositions = 0;
+        for(int i = 0, j = 0 ; i < numBackward || j < numForward ; ) {
+            if(j == numForward || (i < numBackward && backward[i] < forward[j]))
+                positions[numPositions++] = backward[i++];
+            else
+                positions[numPositions++] = forward[j++];
+        }
+        for(int i = 0 ; i < numBackward ; i++) backward[i] = topo[backward[i]];
+        for(int i = 0 ; i < numForward ; i++) forward[i] = topo[forward[i]];
+        for(int i = 0 ; i < numPositions ; i++) {
+            int op = i < numBackward ? backward[i] : forward[i - numBackward];
+            topo[positions[i]] = op;
+            topoPos[op] = positions[i];
+        }
+
+        // heads: u, v and the new machine successor of u have new predecessors
+        int pending = markDirty(v) + markDirty(u) + markDirty(machineSucc(u));
+        for(int i = topoPos[v] ; i < numOps && pending > 0 ; i++) {
+            int op = topo[i];
+            if(!dirty[op]) continue;
+            dirty[op] = false;
+            pending--;
+            int h = Math.max(jobPredEnd(op), machinePredEnd(op));
+            if(h != head[op]) {
+                head[op] = h;
+                pending += markDirty(jobSucc(op)) + markDirty(machineSucc(op));
+            }
+        }
+        // tails: u, v and the new machine predecessor of v have new successors
+        pending = markDirty(u) + markDirty(v) + markDirty(machinePred(v));
+        for(int i = topoPos[u] ; i >= 0 && pending > 0 ; i--) {
+            int op = topo[i];
+            if(!dirty[op]) continue;
+            dirty[op] = false;
+            pending--;
+            int q = Math.max(jobSuccTail(op), machineSuccTail(op));
+            if(q != tail[op]) {
+                tail[op] = q;
+                pending += markDirty(jobPred(op)) + markDirty(machinePred(op));
+            }
+        }
+        updateMakespan();
+        return true;
+    }
+
+    private int markDirty(int op) {
+        if(op < 0 || dirty[op])
+            return 0;
+        dirty[op] = true;
+        return 1;
+    }
+
+    private void updateMakespan() {
+        int max = 0;
+        for(int j = 0 ; j < numJobs ; j++) {
+            max = Math.max(max, end(j * numTasks + numTasks - 1));
+        }
+        makespan = max;
+    }
+
+    private int end(int op) {
+        return head[op] + duration[op];
+    }
+
+    /** tail of the given operation, including its own duration */
+    private int tailWith(int op) {
+        return tail[op] + duration[op];
+    }
+
+    private int jobPred(int op) {
+        return compact.jobPred(op);
+    }
+
+    private int jobSucc(int op) {
+        return compact.jobSucc[op];
+    }
+
+    private int machinePred(int op) {
+        return compact.machinePred[op];
+    }
+
+    private int machineSucc(int op) {
+        return compact.machineSucc[op];
+    }
+
+    private int jobPredEnd(int op) {
+        int jp = jobPred(op);
+        return jp < 0 ? 0 : end(jp);
+    }
+
+    private int machinePredEnd(int op) {
+        int mp = machinePred(op);
+        return mp < 0 ? 0 : end(mp);
+    }
+
+    private int jobSuccTail(int op) {
+        int js = jobSucc(op);
+        return js < 0 ? 0 : tailWith(js);
+    }
+
+    private int machineSuccTail(int op) {
+        int ms = machineSucc(op);
+        return ms < 0 ? 0 : tailWith(ms);
+    }
+}
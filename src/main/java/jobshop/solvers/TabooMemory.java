@@ -0,0 +1,100 @@
+package jobshop.solvers;
+
+import java.util.Arrays;
+
+/** Set of long keys, each one active until a given iteration, stored in an open-addressing hash table.
+ *
+ * Keys are never removed one by one: when the table gets full, it is rebuilt with the keys that are still active,
+ * and only grows if they fill more than a quarter of it (so that rebuilds stay rare). The memory used is thus
+ * proportional to the number of keys active at the same time, i.e. to the tenure, and not to the size of the instance.
+ */
+class TabooMemory {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] expiry;
+    private int size = 0;
+
+    TabooMemory() {
+        this(16);
+    }
+
+    /** `capacity` must be a power of two. */
+    TabooMemory(int capacity) {
+        keys = new long[capacity];
+        expiry = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /** Makes the key active up to the given iteration (included). `iteration` is the current one. */
+    void put(long key, int until, int iteration) {
+        int slot = find(key);
+        if (keys[slot] == key) {
+            expiry[slot] = until;
+            return;
+        }
+        if (2 * (size + 1) > keys.length) {
+            rebuild(iteration);
+            slot = find(key);
+        }
+        keys[slot] = key;
+        expiry[slot] = until;
+        size++;
+    }
+
+    /** Returns true if the key is active at the given iteration. */
+    boolean contains(long key, int iteration) {
+        int slot = find(key);
+        return keys[slot] == key && expiry[slot] >= iteration;
+    }
+
+    /** Number of slots of the table. */
+    int capacity() {
+        return keys.length;
+    }
+
+    /** Slot of the key, or of the empty slot where it would be inserted. */
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /** Drops the keys that have expired, and doubles the table while the others fill more than a quarter of it. */
+    private void rebuild(int iteration) {
+        long[] oldKeys = keys;
+        int[] oldExpiry = expiry;
+        int live = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY && oldExpiry[i] >= iteration) live++;
+        }
+        int capacity = oldKeys.length;
+        while (4 * (live + 1) > capacity) capacity *= 2;
+        keys = new long[capacity];
+        expiry = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY && oldExpiry[i] >= iteration) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                expiry[slot] = oldExpiry[i];
+                size++;
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+}
@@ -3,8 +3,11 @@ package jobshop.solvers;
 import jobshop.Instance;
 import jobshop.Result;
 import jobshop.Schedule;
+import jobshop.SolveMonitor;
 import jobshop.Solver;
+import jobshop.SolverMetrics;
 import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -15,106 +18,170 @@ public class TabooSolver implements Solver {
     //times allow to stock the taboo solution
     private int durationTaboo;
 
+    //Number of threads used to evaluate the neighbors of a solution
+    private int numThreads;
+
+    //If set, the solutions visited are remembered (Zobrist hash of their order) and going back to one is taboo
+    private boolean cycleDetection;
+    //A visited solution stays taboo for this many times the taboo duration, so that old ones are purged from the memory
+    private static final int VISITED_TENURE = 10;
+
+    //Neighbors of a solution explored at each iteration
+    private Neighborhood neighborhood;
+
     public TabooSolver(int maxIter, int durationTaboo){
+        this(maxIter, durationTaboo, 1);
+    }
+
+    public TabooSolver(int maxIter, int durationTaboo, int numThreads){
+        this(maxIter, durationTaboo, numThreads, false);
+    }
+
+    public TabooSolver(int maxIter, int durationTaboo, int numThreads, boolean cycleDetection){
+        this(maxIter, durationTaboo, numThreads, cycleDetection, Neighborhood.N5);
+    }
+
+    public TabooSolver(int maxIter, int durationTaboo, int numThreads, boolean cycleDetection, Neighborhood neighborhood){
         this.maxIter = maxIter;
         this.durationTaboo = durationTaboo;
+        this.numThreads = numThreads;
+        this.cycleDetection = cycleDetection;
+        this.neighborhood = neighborhood;
     }
 
-    //Verify if a solution is already visited
-    static class sTaboo {
-        //Matrix nbJob * nbMachines
-        final int[][] tab;
-        final int durationTaboo;
-        final int nbJob;
-
-        sTaboo(int nbMachine, int nbJob, int durationTaboo) {
-            this.tab = new int[nbJob*nbMachine][nbJob*nbMachine];
-            this.durationTaboo = durationTaboo;
-            this.nbJob = nbJob;
-        }
-        //update the iteration from which can do Swap
-        public void add(DescentSolver.Swap swap, int k) {
-            tab[swap.t1][swap.t2] = k + durationTaboo;
-        }
+    /** Key of the pair of operations (first, second) in the taboo memory, first being executed before second. */
+    static long pairKey(Instance instance, Task first, Task second) {
+        long numOps = (long) instance.numJobs * instance.numTasks;
+        return (first.job * instance.numTasks + first.task) * numOps + second.job * instance.numTasks + second.task;
+    }
 
-        //Check if it is possible to do Swap
-        public boolean check(DescentSolver.Swap swap, int k) {
-            return k > tab[swap.t1][swap.t2];
+    /** Returns true if the move changes the order of a pair of operations that is taboo at the given iteration:
+     * the moved task and any of the tasks it goes past. For a swap of adjacent tasks this is the pair they form. */
+    static boolean isTaboo(TabooMemory taboo, ResourceOrder order, DescentSolver.Move move, int iteration) {
+        Task[] tasks = order.tasksByMachine[move.machine];
+        int moved = move.moved();
+        for (int k = move.lo(); k <= move.hi(); k++) {
+            if (k != moved && taboo.contains(pairKey(order.instance, tasks[Math.min(k, moved)], tasks[Math.max(k, moved)]), iteration)) {
+                return true;
+            }
         }
+        return false;
     }
 
+    /** Makes taboo, up to the given iteration, to put back in their current order the pairs of operations whose
+     * order is changed by the move (it must be called before the move is applied). */
+    static void makeTaboo(TabooMemory taboo, ResourceOrder order, DescentSolver.Move move, int until, int iteration) {
+        Task[] tasks = order.tasksByMachine[move.machine];
+        int moved = move.moved();
+        for (int k = move.lo(); k <= move.hi(); k++) {
+            if (k != moved) {
+                taboo.put(pairKey(order.instance, tasks[Math.max(k, moved)], tasks[Math.min(k, moved)]), until, iteration);
+            }
+        }
+    }
 
     @Override
     public Result solve(Instance instance, long deadline) {
+        return solve(instance, deadline, SolveMonitor.NONE);
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline, SolveMonitor monitor) {
         // Initialize Result with a solution given by GreedySolver
         // Here I use EST_LRPT because it give the best results among all heuristic glouton
         Result result = new GreedySolver(GreedySolver.Priority.EST_LRPT).solve(instance,deadline);
-        // Best result of the current iteration
-        Result currentResult = result;
-        int best = result.schedule.makespan();
-        //Taboo solution to check if the solution if already visited
-        sTaboo sTaboo = new sTaboo(instance.numMachines, instance.numJobs, durationTaboo);
+        return search(new ResourceOrder(result.schedule), deadline, new Incumbent(monitor, instance.lowerBound()));
+    }
+
+    /** Runs one taboo trajectory from the given order (which is modified), until maxIter iterations or the deadline.
+     * Every solution that improves on the shared incumbent is published to it, and a taboo swap is still allowed
+     * if it improves on the shared incumbent (aspiration). The search stops early if the incumbent is cancelled.
+     * Returns the best solution of this trajectory. */
+    Result search(ResourceOrder currentOrder, long deadline, Incumbent shared) {
+        Instance instance = currentOrder.instance;
+        // Order of the current solution, kept in sync with the evaluator
+        SwapEvaluator evaluator = new SwapEvaluator(currentOrder);
+        // Order of the best schedule
+        ResourceOrder order = currentOrder.copy();
+        int best = evaluator.makespan();
+        if (best < shared.makespan()) {
+            shared.offer(new Result(instance, currentOrder.toSchedule(), Result.ExitCause.Blocked));
+        }
+        //Taboo moves: a move stays taboo durationTaboo iterations after the opposite move was done
+        TabooMemory taboo = new TabooMemory();
+        //Solutions already visited, only with cycle detection
+        ZobristHash zobrist = cycleDetection ? new ZobristHash(instance, 0) : null;
+        TabooMemory visited = cycleDetection ? new TabooMemory() : null;
+        long hash = cycleDetection ? zobrist.hash(currentOrder) : 0;
+        if (cycleDetection) {
+            visited.put(hash, VISITED_TENURE * durationTaboo, 0);
+        }
         //Count iteration
         int cpt = 0;
-        //While not reach the maxIter and the deadline
-        while (cpt < maxIter && deadline - System.currentTimeMillis() > 1){
-            cpt++;
-            //Order of best schedule
-            ResourceOrder order = new ResourceOrder(result.schedule);
-            //Order of the best schedule of the current iteration
-            ResourceOrder currentOrder = new ResourceOrder(currentResult.schedule);
-            //List of Blocks of critical path
-            List<DescentSolver.Block> blocksList = DescentSolver.blocksOfCriticalPath(currentOrder);
-            //bestSwap is used to store the local best result
-            DescentSolver.Swap bestSwap = null;
-            int bestLocal = -1;
-            for (DescentSolver.Block block : blocksList) {
-                // List of Swap of the current Block
-                List<DescentSolver.Swap> swapList = DescentSolver.neighbors(block);
-                swapList = DescentSolver.neighbors(block);
-                for (DescentSolver.Swap swap : swapList) {
-                    //Check if it is possible to do Swap
-                    if (sTaboo.check(swap, cpt)) {
-                        //Copy the order of the best schedule of the current iteration
-                        ResourceOrder copy = currentOrder.copy();
-                        //Apply the Swap
-                        swap.applyOn(copy);
-                        int makespan ;
-                        try {
-                            makespan = copy.toSchedule().makespan();
-                        } catch (Exception e){
-                            //if the Swap is not allowed
-                            return result;
-                        }
-                        // if the result given by Swap is better than the local best result
-                        if (bestLocal == -1 || makespan < bestLocal) {
-                            bestSwap = swap;
-                            bestLocal = makespan;
-                            currentOrder = copy;
-                            //if the result given by Swap is also better than the best result
-                            if (makespan < best) {
-                                //Update the best result
-                                best = makespan;
-                                order = copy;
-                            }
+        List<DescentSolver.Move> swapList = new ArrayList<>();
+        // scores of the moves, reused from one iteration to the next
+        int[] makespans = new int[16];
+        SolverMetrics metrics = shared.metrics();
+        try (NeighborhoodScorer scorer = new NeighborhoodScorer(evaluator, numThreads, metrics)) {
+            //While not reach the maxIter and the deadline
+            while (cpt < maxIter && deadline - System.currentTimeMillis() > 1 && !shared.shouldStop()){
+                cpt++;
+                //all neighbors of the current solution: moves in the blocks of the critical path
+                swapList.clear();
+                neighborhood.moves(evaluator, evaluator.blocksOfCriticalPath(), swapList);
+                //makespan of the current order once each swap is applied
+                if (makespans.length < swapList.size()) {
+                    makespans = new int[Math.max(swapList.size(), 2 * makespans.length)];
+                }
+                scorer.score(swapList, makespans);
+                //bestSwap is used to store the local best result
+                DescentSolver.Move bestSwap = null;
+                int bestLocal = -1;
+                for (int i = 0; i < swapList.size(); i++) {
+                    DescentSolver.Move swap = swapList.get(i);
+                    int makespan = makespans[i];
+                    //if the Swap is not allowed
+                    if (makespan == SwapEvaluator.INFEASIBLE) {
+                        continue;
+                    }
+                    //Check if it is possible to do Swap: not taboo, or better than any solution found so far
+                    boolean isTaboo = isTaboo(taboo, currentOrder, swap, cpt)
+                            || (cycleDetection && visited.contains(zobrist.afterMove(hash, currentOrder, swap), cpt));
+                    if (isTaboo && makespan >= Math.min(best, shared.makespan())) {
+                        if (metrics != null) metrics.tabooHits.increment();
+                        continue;
+                    }
+                    // if the result given by Swap is better than the local best result
+                    if (bestLocal == -1 || makespan < bestLocal) {
+                        bestSwap = swap;
+                        bestLocal = makespan;
+                    }
+                }
+                // If a result given by Swap is better than the local best result
+                if (bestSwap != null) {
+                    // move to the best neighbor and store it in the Taboo Solution
+                    if (cycleDetection) {
+                        hash = zobrist.afterMove(hash, currentOrder, bestSwap);
+                        visited.put(hash, cpt + VISITED_TENURE * durationTaboo, cpt);
+                    }
+                    makeTaboo(taboo, currentOrder, bestSwap, cpt + durationTaboo, cpt);
+                    evaluator.commit(bestSwap);
+                    //if the result given by Swap is also better than the best result
+                    if (bestLocal < best) {
+                        //Update the best result
+                        best = bestLocal;
+                        order = currentOrder.copy();
+                        if (best < shared.makespan()) {
+                            shared.offer(new Result(instance, order.toSchedule(), Result.ExitCause.Blocked));
                         }
                     }
                 }
             }
-            // If a result given by Swap is better than the local best result
-            if (bestSwap != null) {
-                // store it in the Taboo Solution
-                sTaboo.add(bestSwap, cpt);
-            }
-            //Update the best result and the local best result
-            currentResult = new Result(currentOrder.instance, currentOrder.toSchedule(), Result.ExitCause.Blocked);
-            result = new Result(order.instance, order.toSchedule(), Result.ExitCause.Blocked);
-        }
-        //If the no of maxIter or the deadline is reached
-        //exit (TimeOut)
-        if (cpt == maxIter) {
-            return result;
         }
-        return new Result(result.instance, result.schedule, Result.ExitCause.Timeout);
+        //Optimal if the lower bound is reached, else blocked after maxIter, or stopped by the deadline or the monitor
+        Result.ExitCause cause = best <= instance.lowerBound() ? Result.ExitCause.ProvedOptimal
+                : cpt == maxIter ? Result.ExitCause.Blocked
+                : shared.isCancelled() ? Result.ExitCause.Cancelled : Result.ExitCause.Timeout;
+        return new Result(instance, order.toSchedule(), cause);
     }
 }
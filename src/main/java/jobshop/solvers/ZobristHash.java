@@ -0,0 +1,48 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+
+/** Zobrist hashing of resource orders: each (operation, position on its machine) has a pseudo-random 64 bits code
+ * and the hash of an order is the XOR of the codes of all its operations.
+ * A move only changes the codes of the tasks between its two ends, so the hash of a neighbor is updated
+ * without going through the whole order (in constant time for a swap).
+ * Codes are derived from the seed with the SplitMix64 mixing function instead of being stored in a table. */
+class ZobristHash {
+
+    private final Instance instance;
+    private final long seed;
+
+    ZobristHash(Instance instance, long seed) {
+        this.instance = instance;
+        this.seed = seed;
+    }
+
+    /** Hash of the whole order. */
+    long hash(ResourceOrder order) {
+        long h = 0;
+        for (int m = 0; m < instance.numMachines; m++) {
+            for (int k = 0; k < order.nextFreeSlot[m]; k++) {
+                h ^= code(order.tasksByMachine[m][k], k);
+            }
+        }
+        return h;
+    }
+
+    /** Hash of the order obtained by applying the move on an order whose hash is `h`. */
+    long afterMove(long h, ResourceOrder order, DescentSolver.Move move) {
+        Task[] tasks = order.tasksByMachine[move.machine];
+        for (int k = move.lo(); k <= move.hi(); k++) {
+            h ^= code(tasks[k], k) ^ code(tasks[move.sourceOf(k)], k);
+        }
+        return h;
+    }
+
+    private long code(Task t, int position) {
+        long z = seed + 0x9E3779B97F4A7C15L * (1 + (long) (t.job * instance.numTasks + t.task) * instance.numJobs + position);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,67 @@
+package jobshop;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class InstanceTests {
+
+    @Test
+    public void testCache() throws IOException {
+        // works on a copy, so that no cache file is left next to the instances
+        Path dir = Files.createTempDirectory("jobshop");
+        try {
+            Path path = dir.resolve("ft06");
+            Files.copy(Paths.get("instances/ft06"), path);
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis() - 60000));
+            Path cache = InstanceLoader.cachePath(path);
+            Instance text = InstanceLoader.readText(path);
+
+            Instance.fromFile(path, true);
+            assert Files.exists(cache);
+            assertSame(text, InstanceLoader.readCache(cache));
+            assertSame(text, Instance.fromFile(path));
+
+            // a corrupted cache is ignored: truncated, with a machine out of range, or random bytes
+            byte[] valid = Files.readAllBytes(cache);
+            byte[] truncated = new byte[valid.length - 3];
+            System.arraycopy(valid, 0, truncated, 0, truncated.length);
+            byte[] badMachine = valid.clone();
+            ByteBuffer.wrap(badMachine).putInt(12, 1000);
+            byte[] noise = new byte[valid.length];
+            new Random(0).nextBytes(noise);
+            for(byte[] corrupted : new byte[][] { truncated, badMachine, noise, new byte[0] }) {
+                Files.write(cache, corrupted);
+                assert InstanceLoader.readCache(cache) == null;
+                assertSame(text, Instance.fromFile(path));
+            }
+        } finally {
+            try(Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    /** Checks that the two instances have the same tasks. */
+    private static void assertSame(Instance expected, Instance actual) {
+        assert actual.numJobs == expected.numJobs;
+        assert actual.numTasks == expected.numTasks;
+        assert actual.numMachines == expected.numMachines;
+        for(int j = 0 ; j < expected.numJobs ; j++) {
+            for(int t = 0 ; t < expected.numTasks ; t++) {
+                assert actual.machine(j, t) == expected.machine(j, t);
+                assert actual.duration(j, t) == expected.duration(j, t);
+                assert actual.task_with_machine(j, expected.machine(j, t)) == t;
+            }
+        }
+    }
+}
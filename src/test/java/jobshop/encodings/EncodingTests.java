@@ -9,6 +9,7 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.Random;
 
 public class EncodingTests {
 
@@ -124,10 +125,95 @@ public class EncodingTests {
         System.out.println("[TEST] ft06  Dmax = " + Dmax);
     }
 
+    @Test
+    public void testJobNumbersMakespan() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft06"));
+        Random random = new Random(0);
+        JobNumbers enc = new JobNumbers(instance);
+        for(int j = 0 ; j < instance.numJobs ; j++)
+            for(int t = 0 ; t < instance.numTasks ; t++)
+                enc.jobs[enc.nextToSet++] = j;
+        // the same encoding is shuffled and evaluated again and again: its buffers must be reset at each call
+        for(int iter = 0 ; iter < 1000 ; iter++) {
+            for(int i = enc.jobs.length - 1 ; i > 0 ; i--) {
+                int k = random.nextInt(i + 1);
+                int tmp = enc.jobs[i];
+                enc.jobs[i] = enc.jobs[k];
+                enc.jobs[k] = tmp;
+            }
+            int makespan = enc.toSchedule().makespan();
+            assert enc.makespan() == makespan;
+            assert enc.makespan() == makespan;
+        }
+    }
 
+    @Test
+    public void testTopologicalDecoder() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/aaa1"));
+        TopologicalDecoder decoder = new TopologicalDecoder(instance);
 
+        ResourceOrder enc = new ResourceOrder(instance);
+        enc.tasksByMachine[0][enc.nextFreeSlot[0]++] = new Task(0, 0);
+        enc.tasksByMachine[0][enc.nextFreeSlot[0]++] = new Task(1, 1);
+        enc.tasksByMachine[1][enc.nextFreeSlot[1]++] = new Task(1, 0);
+        enc.tasksByMachine[1][enc.nextFreeSlot[1]++] = new Task(0, 1);
+        enc.tasksByMachine[2][enc.nextFreeSlot[2]++] = new Task(0, 2);
+        enc.tasksByMachine[2][enc.nextFreeSlot[2]++] = new Task(1, 2);
+        assert decoder.decode(enc);
+        assert decoder.makespan() == 12;
+        Schedule sched = enc.toSchedule(decoder);
+        assert sched.isValid();
 
+        // the validator tells which constraint is violated
+        int[][] times = new int[instance.numJobs][instance.numTasks];
+        for(int j = 0 ; j < instance.numJobs ; j++)
+            for(int t = 0 ; t < instance.numTasks ; t++)
+                times[j][t] = sched.startTime(j, t);
+        times[0][1] = times[0][0];
+        assert new Schedule(instance, times).violation().contains("before the end of task (0,0)");
+        // (1,1) starts as soon as (1,0) ends, while (0,0) still runs on machine 0
+        times[0][1] = sched.startTime(0, 1);
+        times[1][1] = 2;
+        assert new Schedule(instance, times).violation().contains("overlap on machine 0");
+
+        // (1,0) -> (1,1) -> (0,0) -> (0,1) -> (1,0) is a cycle
+        enc = new ResourceOrder(instance);
+        enc.tasksByMachine[0][enc.nextFreeSlot[0]++] = new Task(1, 1);
+        enc.tasksByMachine[0][enc.nextFreeSlot[0]++] = new Task(0, 0);
+        enc.tasksByMachine[1][enc.nextFreeSlot[1]++] = new Task(0, 1);
+        enc.tasksByMachine[1][enc.nextFreeSlot[1]++] = new Task(1, 0);
+        enc.tasksByMachine[2][enc.nextFreeSlot[2]++] = new Task(0, 2);
+        enc.tasksByMachine[2][enc.nextFreeSlot[2]++] = new Task(1, 2);
+        assert !decoder.decode(enc);
+        try {
+            enc.toSchedule();
+            assert false;
+        } catch (RuntimeException e) {
+            // expected: no schedule exists for a cyclic order
+        }
+    }
 
-
-
+    @Test
+    public void testCompactResourceOrder() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft06"));
+        Schedule sched = new BasicSolver().solve(instance, System.currentTimeMillis() + 10).schedule;
+
+        // resource order -> compact -> resource order / job numbers must give back the same schedule
+        ResourceOrder order = new ResourceOrder(sched);
+        CompactResourceOrder compact = new CompactResourceOrder(order);
+        assert compact.toJobNumbers().makespan() == sched.makespan();
+        assert compact.toSchedule().makespan() == sched.makespan();
+        assert compact.toResourceOrder().toSchedule().makespan() == sched.makespan();
+        assert compact.toJobNumbers().toSchedule().makespan() == sched.makespan();
+        assert new CompactResourceOrder(new JobNumbers(sched)).toSchedule().makespan() == sched.makespan();
+
+        // swapping twice the same tasks restores the order
+        compact.swap(0, 0, 3);
+        compact.swap(0, 0, 3);
+        assert compact.toSchedule().makespan() == sched.makespan();
+        for(int op = 0 ; op < instance.numJobs * instance.numTasks ; op++) {
+            int ms = compact.machineSucc[op];
+            assert ms < 0 || compact.machinePred[ms] == op;
+        }
+    }
 }
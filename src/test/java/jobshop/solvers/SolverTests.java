@@ -0,0 +1,439 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.LowerBound;
+import jobshop.Result;
+import jobshop.Schedule;
+import jobshop.SolveMonitor;
+import jobshop.SolverMetrics;
+import jobshop.StoppingCriteria;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+import jobshop.encodings.TopologicalDecoder;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+public class SolverTests {
+
+    @Test
+    public void testSwapEvaluator() throws IOException {
+        Random random = new Random(0);
+        for(String name : new String[] { "ft06", "ft10" }) {
+            Instance instance = Instance.fromFile(Paths.get("instances/" + name));
+            TopologicalDecoder decoder = new TopologicalDecoder(instance);
+            int numOps = instance.numJobs * instance.numTasks;
+            for(Neighborhood neighborhood : Neighborhood.values()) {
+                ResourceOrder order = ParallelTabooSolver.randomStart(instance, random);
+                SwapEvaluator evaluator = new SwapEvaluator(order);
+                List<DescentSolver.Move> moves = new ArrayList<>();
+                for(int iter = 0 ; iter < 100 ; iter++) {
+                    moves.clear();
+                    neighborhood.moves(evaluator, evaluator.blocksOfCriticalPath(), moves);
+                    // and a move anywhere, that may create a cycle
+                    moves.add(randomMove(instance, random));
+                    for(DescentSolver.Move move : moves) {
+                        int exact = exact(order, move, decoder);
+                        assert evaluator.evaluate(move) == exact;
+                        // Taillard's estimate of an adjacent swap is a lower bound
+                        if(move.hi() == move.lo() + 1 && exact != SwapEvaluator.INFEASIBLE)
+                            assert evaluator.estimate(move) <= exact;
+                    }
+
+                    DescentSolver.Move move = moves.get(random.nextInt(moves.size()));
+                    int exact = exact(order, move, decoder);
+                    int makespan = evaluator.makespan();
+                    int[] heads = new int[numOps];
+                    for(int op = 0 ; op < numOps ; op++)
+                        heads[op] = evaluator.head(op);
+                    String before = order.toString();
+
+                    boolean committed = evaluator.commit(move);
+                    assert committed == (exact != SwapEvaluator.INFEASIBLE);
+                    if(committed) {
+                        // same state as a decoding from scratch
+                        assert decoder.decode(order);
+                        assert evaluator.makespan() == exact && decoder.makespan() == exact;
+                        for(int op = 0 ; op < numOps ; op++)
+                            assert evaluator.head(op) == decoder.startTimes[op];
+                    } else {
+                        // the move was rejected and nothing changed
+                        assert order.toString().equals(before);
+                        assert evaluator.makespan() == makespan;
+                        for(int op = 0 ; op < numOps ; op++)
+                            assert evaluator.head(op) == heads[op];
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testStoppingCriteria() throws Exception {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft06"));
+        Schedule worse = new GreedySolver(GreedySolver.Priority.SPT).solve(instance, Long.MAX_VALUE).schedule;
+        Schedule better = new BasicSolver().solve(instance, Long.MAX_VALUE).schedule;
+        assert better.makespan() < worse.makespan();
+
+        // stall: cancelled after exactly 3 iterations without improvement
+        StoppingCriteria stall = new StoppingCriteria(0, 0, 3, 0);
+        stall.improved(worse, 0);
+        for(int i = 0 ; i < 3 ; i++)
+            assert !stall.isCancelled();
+        assert stall.isCancelled();
+        // an improvement restarts the count, a worse solution does not
+        stall.improved(better, 0);
+        stall.improved(worse, 0);
+        for(int i = 0 ; i < 3 ; i++)
+            assert !stall.isCancelled();
+        assert stall.isCancelled();
+        assert stall.best() == better.makespan();
+
+        // target: cancelled once a solution reaches it
+        StoppingCriteria target = new StoppingCriteria(better.makespan(), 0, 0, 0);
+        assert !target.isCancelled();
+        target.improved(worse, 0);
+        assert !target.isCancelled();
+        target.improved(better, 0);
+        assert target.isCancelled();
+
+        // the iterations of several threads are all counted
+        int perThread = 10000;
+        StoppingCriteria shared = new StoppingCriteria(0, 0, 4 * perThread, 0);
+        Thread[] threads = new Thread[4];
+        for(int t = 0 ; t < threads.length ; t++) {
+            threads[t] = new Thread(() -> {
+                for(int i = 0 ; i < perThread ; i++) shared.isCancelled();
+            });
+            threads[t].start();
+        }
+        for(Thread thread : threads) thread.join();
+        assert shared.isCancelled();
+    }
+
+    @Test
+    public void testBranchAndBound() throws IOException {
+        // the lower bound is below the optimum, so that optimality is proved by the search and not by the bound
+        String[] names = { "ft06", "la03", "la04" };
+        int[] optima = { 55, 597, 590 };
+        for(int i = 0 ; i < names.length ; i++) {
+            Instance instance = Instance.fromFile(Paths.get("instances/" + names[i]));
+            assert instance.lowerBound() < optima[i];
+            SolverMetrics metrics = new SolverMetrics(SolveMonitor.NONE);
+            Result result = new BranchAndBoundSolver().solve(instance, System.currentTimeMillis() + 60000, metrics);
+            assert metrics.iterations.sum() > 0;
+            assert result.cause == Result.ExitCause.ProvedOptimal;
+            assert result.schedule.isValid();
+            assert result.schedule.makespan() == optima[i];
+        }
+    }
+
+    @Test
+    public void testShiftingBottleneck() throws IOException {
+        for(String name : new String[] { "ft06", "ft10" }) {
+            Instance instance = Instance.fromFile(Paths.get("instances/" + name));
+            Schedule parallel = new ShiftingBottleneckSolver(4, 1000, 5).solve(instance, System.currentTimeMillis() + 60000).schedule;
+            Schedule sequential = new ShiftingBottleneckSolver(1, 1000, 5).solve(instance, System.currentTimeMillis() + 60000).schedule;
+            for(Schedule schedule : new Schedule[] { parallel, sequential }) {
+                assert schedule.isValid();
+                assert schedule.makespan() >= instance.lowerBound();
+            }
+            // the bottleneck does not depend on the order in which the threads finish
+            assert parallel.makespan() == sequential.makespan();
+
+            // past the deadline, all the machines are sequenced by their heads
+            Schedule byHeads = new ShiftingBottleneckSolver(1, 1000, 5).solve(instance, 0).schedule;
+            assert byHeads.isValid();
+        }
+    }
+
+    @Test
+    public void testParallelScoring() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        Random random = new Random(0);
+        SwapEvaluator evaluator = new SwapEvaluator(ParallelTabooSolver.randomStart(instance, random));
+        List<DescentSolver.Move> moves = new ArrayList<>();
+        try (NeighborhoodScorer sequential = new NeighborhoodScorer(evaluator, 1);
+             NeighborhoodScorer parallel = new NeighborhoodScorer(evaluator, 4)) {
+            for(int iter = 0 ; iter < 50 ; iter++) {
+                moves.clear();
+                Neighborhood.N7.moves(evaluator, evaluator.blocksOfCriticalPath(), moves);
+                // moves off the critical path, some of them infeasible
+                for(int i = 0 ; i < 20 ; i++)
+                    moves.add(randomMove(instance, random));
+                int[] expected = new int[moves.size()];
+                int[] actual = new int[moves.size()];
+                sequential.score(moves, expected);
+                parallel.score(moves, actual);
+                assert Arrays.equals(expected, actual);
+
+                // next order: a random feasible move
+                while(!evaluator.commit(moves.get(random.nextInt(moves.size())))) { }
+            }
+        }
+    }
+
+    @Test
+    public void testNeighborhoodsAcyclic() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        TopologicalDecoder decoder = new TopologicalDecoder(instance);
+        Random random = new Random(1);
+        List<DescentSolver.Move> moves = new ArrayList<>();
+        for(int iter = 0 ; iter < 200 ; iter++) {
+            ResourceOrder order = ParallelTabooSolver.randomStart(instance, random);
+            SwapEvaluator evaluator = new SwapEvaluator(order);
+            for(Neighborhood neighborhood : Neighborhood.values()) {
+                moves.clear();
+                neighborhood.moves(evaluator, evaluator.blocksOfCriticalPath(), moves);
+                // the filters must only let feasible moves through
+                for(DescentSolver.Move move : moves) {
+                    ResourceOrder copy = order.copy();
+                    move.applyOn(copy);
+                    assert decoder.decode(copy) : neighborhood + " " + move;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testZobristHash() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        Random random = new Random(2);
+        ResourceOrder order = ParallelTabooSolver.randomStart(instance, random);
+        SwapEvaluator evaluator = new SwapEvaluator(order);
+        ZobristHash zobrist = new ZobristHash(instance, 0);
+        long hash = zobrist.hash(order);
+        for(int iter = 0 ; iter < 1000 ; iter++) {
+            DescentSolver.Move move = randomMove(instance, random);
+            // the hash is updated before the move is applied, as in the taboo search
+            long after = zobrist.afterMove(hash, order, move);
+            if(evaluator.commit(move))
+                hash = after;
+            assert hash == zobrist.hash(order);
+        }
+    }
+
+    @Test
+    public void testTabooTenure() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        Random random = new Random(3);
+        ResourceOrder order = ParallelTabooSolver.randomStart(instance, random);
+        SwapEvaluator evaluator = new SwapEvaluator(order);
+        // small table, so that it is rebuilt while the pairs are taboo
+        TabooMemory taboo = new TabooMemory(16);
+        int tenure = 7;
+        for(int iteration = 0 ; iteration < 1000 ; iteration++) {
+            DescentSolver.Move move = randomMove(instance, random);
+            if(!(move instanceof DescentSolver.Swap) || move.hi() != move.lo() + 1)
+                continue;
+            assert !TabooSolver.isTaboo(taboo, order, move, iteration);
+            TabooSolver.makeTaboo(taboo, order, move, iteration + tenure, iteration);
+            if(!evaluator.commit(move))
+                continue;
+            // swapping the pair back is taboo for exactly `tenure` iterations, other keys come and go meanwhile
+            for(int later = iteration + 1 ; later <= iteration + tenure ; later++) {
+                // bit 62 set: not a pair key of ft10, nor the empty key
+                for(int k = 0 ; k < 5 ; k++)
+                    taboo.put(random.nextLong() | Long.MIN_VALUE >>> 1, later + tenure, later);
+                assert TabooSolver.isTaboo(taboo, order, move, later);
+            }
+            assert !TabooSolver.isTaboo(taboo, order, move, iteration + tenure + 1);
+            // undo the swap, so that the same pair is not met again
+            evaluator.commit(move);
+            iteration += tenure;
+        }
+    }
+
+    @Test
+    public void testTabooMemoryBounded() {
+        // one new key per iteration, each one active for 50 iterations: the table must not grow with the iterations
+        TabooMemory memory = new TabooMemory();
+        for(int iteration = 0 ; iteration < 100000 ; iteration++) {
+            memory.put(iteration, iteration + 50, iteration);
+            assert memory.contains(iteration, iteration + 50);
+        }
+        assert memory.capacity() <= 256;
+    }
+
+    @Test
+    public void testGreedyDispatch() throws IOException {
+        for(String name : new String[] { "aaa1", "ft06", "ft10", "ft20", "la01", "la21", "abz7", "swv11" }) {
+            Instance instance = Instance.fromFile(Paths.get("instances/" + name));
+            for(GreedySolver.Priority rule : GreedySolver.Priority.values()) {
+                Schedule schedule = new GreedySolver(rule).solve(instance, Long.MAX_VALUE).schedule;
+                Schedule expected = referenceDispatch(instance, rule);
+                for(int j = 0 ; j < instance.numJobs ; j++)
+                    for(int t = 0 ; t < instance.numTasks ; t++)
+                        assert schedule.startTime(j, t) == expected.startTime(j, t) : name + " " + rule;
+            }
+        }
+    }
+
+    @Test
+    public void testParallelTabooExpiredDeadline() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        Result result = new ParallelTabooSolver(1000, 10, 2).solve(instance, 0);
+        assert result.schedule.isValid();
+    }
+
+    @Test
+    public void testGifflerThompson() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft06"));
+        for(GreedySolver.Priority rule : GreedySolver.Priority.values()) {
+            Schedule active = new GifflerThompsonSolver(rule).solve(instance, Long.MAX_VALUE).schedule;
+            Schedule nonDelay = new GifflerThompsonSolver(rule, true).solve(instance, Long.MAX_VALUE).schedule;
+            assert active.isValid() && nonDelay.isValid();
+            // no task of an active schedule fits in an idle period of its machine before its start
+            for(int m = 0 ; m < instance.numMachines ; m++) {
+                for(int j = 0 ; j < instance.numJobs ; j++) {
+                    int t = instance.task_with_machine(j, m);
+                    int ready = t == 0 ? 0 : active.endTime(new Task(j, t - 1));
+                    int idleStart = 0;
+                    for(int k : machineOrder(active, m)) {
+                        int tk = instance.task_with_machine(k, m);
+                        int start = active.startTime(k, tk);
+                        if(k == j) break;
+                        assert Math.max(ready, idleStart) + instance.duration(j, t) > start;
+                        idleStart = start + instance.duration(k, tk);
+                    }
+                }
+            }
+        }
+        // non-delay schedules with the EST rules are the ones of the greedy solver
+        GreedySolver.Priority rule = GreedySolver.Priority.EST_LRPT;
+        assert new GifflerThompsonSolver(rule, true).solve(instance, Long.MAX_VALUE).schedule.makespan()
+                == new GreedySolver(rule).solve(instance, Long.MAX_VALUE).schedule.makespan();
+    }
+
+    @Test
+    public void testOneMachine() {
+        Random random = new Random(0);
+        int n = 6;
+        int[] r = new int[n], p = new int[n], q = new int[n], sequence = new int[n], start = new int[n];
+        for(int iter = 0 ; iter < 100 ; iter++) {
+            for(int i = 0 ; i < n ; i++) {
+                r[i] = random.nextInt(30);
+                p[i] = 1 + random.nextInt(10);
+                q[i] = random.nextInt(30);
+            }
+            int optimum = bestSequence(n, r, p, q, new int[n], new boolean[n], 0, 0, 0);
+            assert LowerBound.preemptiveBound(n, r, p, q, new int[n]) <= optimum;
+            assert OneMachine.schrage(n, r, p, q, sequence, start) >= optimum;
+            assert OneMachine.carlier(n, r, p, q, sequence, Long.MAX_VALUE) == optimum;
+            // the sequence reaches the optimum
+            int t = 0, makespan = 0;
+            for(int op : sequence) {
+                t = Math.max(t, r[op]) + p[op];
+                makespan = Math.max(makespan, t + q[op]);
+            }
+            assert makespan == optimum;
+        }
+    }
+
+    @Test
+    public void testBeamSearch() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        for(boolean rollout : new boolean[] { true, false }) {
+            Schedule sequential = new BeamSearchSolver(5, 2, GreedySolver.Priority.EST_LRPT, rollout, 1)
+                    .solve(instance, Long.MAX_VALUE).schedule;
+            Schedule parallel = new BeamSearchSolver(5, 2, GreedySolver.Priority.EST_LRPT, rollout, 3)
+                    .solve(instance, Long.MAX_VALUE).schedule;
+            assert sequential.isValid();
+            assert sequential.makespan() >= instance.lowerBound();
+            // the beam does not depend on how its expansion is split between threads
+            assert parallel.makespan() == sequential.makespan();
+        }
+    }
+
+    /** Makespan of the order with the move applied, INFEASIBLE if it has a cycle. The order is left unchanged. */
+    static int exact(ResourceOrder order, DescentSolver.Move move, TopologicalDecoder decoder) {
+        ResourceOrder copy = order.copy();
+        move.applyOn(copy);
+        return decoder.decode(copy) ? decoder.makespan() : SwapEvaluator.INFEASIBLE;
+    }
+
+    /** Greedy list scheduler without any heap: at each step, scans the next task of every job and takes the one
+     * with the earliest start time (EST rules only), then the best value of the rule, then the tie-break of
+     * GreedySolver.ruleKey (the job for remaining-time rules, the order in which the tasks became ready otherwise). */
+    static Schedule referenceDispatch(Instance instance, GreedySolver.Priority rule) {
+        boolean est = rule.name().startsWith("EST");
+        boolean byJob = rule.name().endsWith("RPT");
+        int[] nextTask = new int[instance.numJobs];
+        int[] jobEnd = new int[instance.numJobs];
+        int[] machineEnd = new int[instance.numMachines];
+        int[] remainingTime = new int[instance.numJobs];
+        int[] readySince = new int[instance.numJobs];
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            for(int t = 0 ; t < instance.numTasks ; t++)
+                remainingTime[j] += instance.duration(j, t);
+            readySince[j] = j;
+        }
+        int seq = instance.numJobs;
+        ResourceOrder order = new ResourceOrder(instance);
+        for(int step = 0 ; step < instance.numJobs * instance.numTasks ; step++) {
+            int best = -1;
+            int bestStart = 0;
+            int bestValue = 0;
+            for(int j = 0 ; j < instance.numJobs ; j++) {
+                if(nextTask[j] == instance.numTasks)
+                    continue;
+                int start = est ? Math.max(jobEnd[j], machineEnd[instance.machine(j, nextTask[j])]) : 0;
+                int value = GreedySolver.ruleValue(rule, instance, j, nextTask[j], remainingTime);
+                if(best < 0 || start < bestStart || start == bestStart && (value < bestValue
+                        || value == bestValue && (byJob ? j < best : readySince[j] < readySince[best]))) {
+                    best = j;
+                    bestStart = start;
+                    bestValue = value;
+                }
+            }
+            int task = nextTask[best]++;
+            int machine = instance.machine(best, task);
+            order.tasksByMachine[machine][order.nextFreeSlot[machine]++] = new Task(best, task);
+            jobEnd[best] = bestStart + instance.duration(best, task);
+            machineEnd[machine] = jobEnd[best];
+            remainingTime[best] -= instance.duration(best, task);
+            readySince[best] = seq++;
+        }
+        return order.toSchedule();
+    }
+
+    /** Swap or insertion between two random positions of a random machine. */
+    static DescentSolver.Move randomMove(Instance instance, Random random) {
+        int machine = random.nextInt(instance.numMachines);
+        int a = random.nextInt(instance.numJobs);
+        int b = random.nextInt(instance.numJobs - 1);
+        if(b >= a) b++;
+        return random.nextBoolean() ? new DescentSolver.Swap(machine, a, b) : new DescentSolver.Insertion(machine, a, b);
+    }
+
+    /** Jobs in the order they use the machine in the schedule. */
+    private static Integer[] machineOrder(Schedule schedule, int machine) {
+        Instance instance = schedule.pb;
+        Integer[] jobs = new Integer[instance.numJobs];
+        for(int j = 0 ; j < instance.numJobs ; j++)
+            jobs[j] = j;
+        Arrays.sort(jobs, Comparator.comparingInt(j -> schedule.startTime(j, instance.task_with_machine(j, machine))));
+        return jobs;
+    }
+
+    /** Optimum of the one-machine problem by enumeration of the sequences that start with `prefix[0..k[`. */
+    private static int bestSequence(int n, int[] r, int[] p, int[] q, int[] prefix, boolean[] used, int k, int t, int makespan) {
+        if(k == n) return makespan;
+        int best = Integer.MAX_VALUE;
+        for(int op = 0 ; op < n ; op++) {
+            if(used[op]) continue;
+            used[op] = true;
+            prefix[k] = op;
+            int end = Math.max(t, r[op]) + p[op];
+            best = Math.min(best, bestSequence(n, r, p, q, prefix, used, k + 1, end, Math.max(makespan, end + q[op])));
+            used[op] = false;
+        }
+        return best;
+    }
+}